@@ -0,0 +1,99 @@
+package com.bankbuddy;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the BankOrganizer queries behind the bank menu actions
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BankOrganizerBenchmark
+{
+	@Param({"EMPTY", "TYPICAL", "FULL", "PLACEHOLDERS", "SKEWED"})
+	public SyntheticBank.Profile profile;
+
+	private BankSnapshot bank;
+	private BankOrganizer organizer;
+
+	@Setup
+	public void setUp()
+	{
+		bank = SyntheticBank.generate(profile, 42);
+		organizer = new BankOrganizer(SyntheticBank.itemData());
+		// Warm the name category cache so steady-state lookups are measured
+		organizer.aggregateCategories(bank, 0);
+	}
+
+	@Benchmark
+	public void categorizeItem(Blackhole blackhole)
+	{
+		for (int slot = 0; slot < bank.size(); slot++)
+		{
+			int itemId = bank.getItemId(slot);
+			if (itemId != -1)
+			{
+				blackhole.consume(organizer.categorizeItem(itemId));
+			}
+		}
+	}
+
+	@Benchmark
+	public void categorizeItemCold(Blackhole blackhole)
+	{
+		BankOrganizer cold = new BankOrganizer(SyntheticBank.itemData());
+		for (int slot = 0; slot < bank.size(); slot++)
+		{
+			int itemId = bank.getItemId(slot);
+			if (itemId != -1)
+			{
+				blackhole.consume(cold.categorizeItemOrdinal(itemId));
+			}
+		}
+	}
+
+	@Benchmark
+	public int[] sortByValue()
+	{
+		return organizer.sortByValue(bank, false);
+	}
+
+	@Benchmark
+	public int[] topFiveByValue()
+	{
+		return organizer.sortByValue(bank, false, 5);
+	}
+
+	@Benchmark
+	public int[] sortAlphabetically()
+	{
+		return organizer.sortAlphabetically(bank);
+	}
+
+	@Benchmark
+	public Object findValuableItems()
+	{
+		return organizer.findValuableItems(bank, 100_000, 5);
+	}
+
+	@Benchmark
+	public void getCategoryValue(Blackhole blackhole)
+	{
+		for (String category : BankOrganizer.getCategories())
+		{
+			blackhole.consume(organizer.getCategoryValue(bank, category));
+		}
+	}
+
+	@Benchmark
+	public CategoryBreakdown aggregateCategories()
+	{
+		return organizer.aggregateCategories(bank, 1);
+	}
+}
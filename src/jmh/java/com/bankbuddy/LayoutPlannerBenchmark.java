@@ -0,0 +1,70 @@
+package com.bankbuddy;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures planning the bank layout from scratch against re-planning after
+ * the player swaps two items in one tab
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LayoutPlannerBenchmark
+{
+	// Eight tabs of 90 items with the rest in the main tab
+	private static final int[] TAB_SIZES = {90, 90, 90, 90, 90, 90, 90, 90, 0};
+
+	@Param({"TYPICAL", "FULL"})
+	public SyntheticBank.Profile profile;
+
+	private BankOrganizer organizer;
+	private BankSnapshot bank;
+	private BankSnapshot swapped;
+	private BankLayoutPlanner planner;
+	private boolean flip;
+
+	@Setup
+	public void setUp()
+	{
+		organizer = new BankOrganizer(SyntheticBank.itemData());
+		bank = SyntheticBank.generate(profile, 42);
+
+		int[] ids = new int[bank.size()];
+		int[] quantities = new int[bank.size()];
+		int[] prices = new int[bank.size()];
+		for (int slot = 0; slot < bank.size(); slot++)
+		{
+			// Swap the first two slots of the second tab
+			int from = slot == 90 ? 91 : slot == 91 ? 90 : slot;
+			ids[slot] = bank.getItemId(from);
+			quantities[slot] = bank.getQuantity(from);
+			prices[slot] = bank.getPrice(from);
+		}
+		swapped = SyntheticBank.snapshot(ids, quantities, prices);
+
+		planner = new BankLayoutPlanner();
+		planner.update(bank, TAB_SIZES, organizer::categorizeItemOrdinal);
+	}
+
+	@Benchmark
+	public LayoutPlan fullPlan()
+	{
+		planner.clear();
+		return planner.update(bank, TAB_SIZES, organizer::categorizeItemOrdinal);
+	}
+
+	/**
+	 * Alternates between two banks differing in one tab, so only that tab is re-planned
+	 */
+	@Benchmark
+	public LayoutPlan singleSwapReplan()
+	{
+		flip = !flip;
+		return planner.update(flip ? swapped : bank, TAB_SIZES, organizer::categorizeItemOrdinal);
+	}
+}
@@ -0,0 +1,120 @@
+package com.bankbuddy;
+
+import java.util.Random;
+
+/**
+ * Deterministic bank generator and in-memory item data for benchmarks, used in
+ * place of ItemManager so the hot paths can be measured without a client
+ */
+final class SyntheticBank
+{
+	static final int MAX_ITEM_ID = 30000;
+	static final int FULL_BANK_SLOTS = 816;
+
+	private static final String[] WORDS = {
+		"Rune", "Dragon", "Super", "Magic", "Oak", "Iron", "Adamant", "Shark", "Ranarr",
+		"Blessed", "Ancient", "Zamorak", "Saradomin", "Guthix", "Crystal", "Abyssal"
+	};
+	private static final String[] NOUNS = {
+		"scimitar", "platebody", "potion(4)", "rune", "ore", "bar", "logs", "seed",
+		"fish", "pickaxe", "boots", "gloves", "shield", "bolts", "arrows", "teleport"
+	};
+
+	// Built once so lookups behave like ItemManager's cached compositions
+	private static final InMemoryItemDataProvider ITEM_DATA = new InMemoryItemDataProvider();
+
+	static
+	{
+		for (int itemId = 0; itemId < MAX_ITEM_ID; itemId++)
+		{
+			String name = WORDS[itemId % WORDS.length] + " " + NOUNS[(itemId / WORDS.length) % NOUNS.length];
+			ITEM_DATA.put(itemId, name, price(itemId));
+		}
+	}
+
+	enum Profile
+	{
+		EMPTY,
+		TYPICAL,
+		FULL,
+		PLACEHOLDERS,
+		SKEWED
+	}
+
+	private SyntheticBank()
+	{
+	}
+
+	static ItemDataProvider itemData()
+	{
+		return ITEM_DATA;
+	}
+
+	private static int price(int itemId)
+	{
+		// Spread prices over several orders of magnitude
+		int h = itemId * 0x9E3779B9;
+		return (h >>> 8) % (1 << (4 + (itemId % 20)));
+	}
+
+	static BankSnapshot generate(Profile profile, long seed)
+	{
+		Random random = new Random(seed);
+		int slots = profile == Profile.EMPTY ? 0 : FULL_BANK_SLOTS;
+		int used = profile == Profile.TYPICAL ? 450 : slots;
+
+		int[] ids = new int[slots];
+		int[] quantities = new int[slots];
+		int[] prices = new int[slots];
+		for (int slot = 0; slot < slots; slot++)
+		{
+			if (slot >= used)
+			{
+				ids[slot] = -1;
+				continue;
+			}
+
+			int itemId = random.nextInt(MAX_ITEM_ID);
+			ids[slot] = itemId;
+			prices[slot] = ITEM_DATA.getPrice(itemId);
+			switch (profile)
+			{
+				case PLACEHOLDERS:
+					// Placeholders are kept in the bank with no quantity
+					quantities[slot] = random.nextInt(3) == 0 ? 1 + random.nextInt(1000) : 0;
+					break;
+				case SKEWED:
+					// A few huge stacks and a long tail of single items
+					quantities[slot] = random.nextInt(20) == 0 ? 1_000_000 + random.nextInt(100_000_000) : 1;
+					break;
+				default:
+					quantities[slot] = 1 + random.nextInt(5000);
+					break;
+			}
+		}
+
+		return snapshot(ids, quantities, prices);
+	}
+
+	static BankSnapshot snapshot(int[] ids, int[] quantities, int[] prices)
+	{
+		ContainerValuation valuation = new ContainerValuation(BankOrganizer.getCategoryCount());
+		valuation.update(ids, quantities, prices, categories(ids));
+		return new BankSnapshot(ids, quantities, prices, valuation.getTotalValue(),
+			valuation.getTotalItems(), valuation.getUniqueItems(), System.currentTimeMillis());
+	}
+
+	/**
+	 * Categorizes every slot the way the client thread does before valuation
+	 */
+	static int[] categories(int[] ids)
+	{
+		BankOrganizer organizer = new BankOrganizer(ITEM_DATA);
+		int[] categories = new int[ids.length];
+		for (int slot = 0; slot < ids.length; slot++)
+		{
+			categories[slot] = ids[slot] == -1 ? 0 : organizer.categorizeItemOrdinal(ids[slot]);
+		}
+		return categories;
+	}
+}
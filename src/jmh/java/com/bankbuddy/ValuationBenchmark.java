@@ -0,0 +1,69 @@
+package com.bankbuddy;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the bank valuation that runs for every bank container change,
+ * both for a single deposit and for a full rebuild
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ValuationBenchmark
+{
+	@Param({"TYPICAL", "FULL", "PLACEHOLDERS", "SKEWED"})
+	public SyntheticBank.Profile profile;
+
+	private int[] ids;
+	private int[] quantities;
+	private int[] prices;
+	private int[] categories;
+	private ContainerValuation valuation;
+	private int slot;
+
+	@Setup
+	public void setUp()
+	{
+		BankSnapshot bank = SyntheticBank.generate(profile, 42);
+		ids = new int[bank.size()];
+		quantities = new int[bank.size()];
+		prices = new int[bank.size()];
+		for (int i = 0; i < bank.size(); i++)
+		{
+			ids[i] = bank.getItemId(i);
+			quantities[i] = bank.getQuantity(i);
+			prices[i] = bank.getPrice(i);
+		}
+
+		categories = SyntheticBank.categories(ids);
+
+		valuation = new ContainerValuation(BankOrganizer.getCategoryCount());
+		valuation.setValuableThreshold(100_000);
+		valuation.update(ids, quantities, prices, categories);
+	}
+
+	/**
+	 * One slot changes per event, like a single deposit or withdrawal
+	 */
+	@Benchmark
+	public long singleSlotDelta()
+	{
+		slot = (slot + 1) % ids.length;
+		quantities[slot]++;
+		valuation.update(ids, quantities, prices, categories);
+		return valuation.getTotalValue();
+	}
+
+	@Benchmark
+	public long fullRebuild()
+	{
+		valuation.invalidate();
+		valuation.update(ids, quantities, prices, categories);
+		return valuation.getTotalValue();
+	}
+}
@@ -0,0 +1,103 @@
+package com.bankbuddy;
+
+/**
+ * Values every tracked container of an account together. Each container keeps
+ * its own incremental valuation, so an update only costs the slots that changed
+ * in that container, and all of them add their slot counts to one shared index
+ * from which the account-wide unique item count is read. An item held in both
+ * the bank and the inventory is counted once.
+ *
+ * Not thread safe.
+ */
+public class AccountValuation
+{
+	private final int[] containerIds;
+	private final ContainerValuation[] containers;
+	// Slots holding each item id across all containers
+	private final ItemQuantityIndex slotCounts = new ItemQuantityIndex();
+
+	/**
+	 * @param containerIds ids of the item containers to track
+	 */
+	public AccountValuation(int categoryCount, int[] containerIds)
+	{
+		this.containerIds = containerIds.clone();
+		containers = new ContainerValuation[containerIds.length];
+		for (int index = 0; index < containers.length; index++)
+		{
+			containers[index] = new ContainerValuation(categoryCount, slotCounts);
+		}
+	}
+
+	/**
+	 * Gets the valuation of a tracked container
+	 *
+	 * @return the valuation, or null if the container is not tracked
+	 */
+	public ContainerValuation getContainer(int containerId)
+	{
+		int index = indexOf(containerId);
+		return index == -1 ? null : containers[index];
+	}
+
+	/**
+	 * Forgets every container, as when switching accounts
+	 */
+	public void clear()
+	{
+		for (ContainerValuation container : containers)
+		{
+			container.clear();
+		}
+	}
+
+	public long getTotalValue()
+	{
+		long total = 0;
+		for (ContainerValuation container : containers)
+		{
+			total += container.getTotalValue();
+		}
+		return total;
+	}
+
+	public long getTotalItems()
+	{
+		long total = 0;
+		for (ContainerValuation container : containers)
+		{
+			total += container.getTotalItems();
+		}
+		return total;
+	}
+
+	public int getUniqueItems()
+	{
+		return slotCounts.size();
+	}
+
+	/**
+	 * Copies out the current totals
+	 */
+	public AccountValue toValue()
+	{
+		long[] containerValues = new long[containers.length];
+		for (int index = 0; index < containers.length; index++)
+		{
+			containerValues[index] = containers[index].getTotalValue();
+		}
+		return new AccountValue(containerIds, containerValues, getTotalItems(), getUniqueItems());
+	}
+
+	private int indexOf(int containerId)
+	{
+		for (int index = 0; index < containerIds.length; index++)
+		{
+			if (containerIds[index] == containerId)
+			{
+				return index;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,65 @@
+package com.bankbuddy;
+
+/**
+ * Immutable totals of every tracked container of an account, as last seen.
+ * Containers that have not been opened since login count as empty.
+ */
+public final class AccountValue
+{
+	public static final AccountValue EMPTY = new AccountValue(new int[0], new long[0], 0, 0);
+
+	// Shared with other values from the same valuation, never modified
+	private final int[] containerIds;
+	private final long[] containerValues;
+	private final long totalValue;
+	private final long totalItems;
+	private final int uniqueItems;
+
+	AccountValue(int[] containerIds, long[] containerValues, long totalItems, int uniqueItems)
+	{
+		this.containerIds = containerIds;
+		this.containerValues = containerValues;
+		this.totalItems = totalItems;
+		this.uniqueItems = uniqueItems;
+
+		long total = 0;
+		for (long value : containerValues)
+		{
+			total += value;
+		}
+		totalValue = total;
+	}
+
+	public long getTotalValue()
+	{
+		return totalValue;
+	}
+
+	public long getTotalItems()
+	{
+		return totalItems;
+	}
+
+	/**
+	 * Gets the number of distinct items across all containers
+	 */
+	public int getUniqueItems()
+	{
+		return uniqueItems;
+	}
+
+	/**
+	 * @return the value of one container, 0 if it is not tracked
+	 */
+	public long getContainerValue(int containerId)
+	{
+		for (int index = 0; index < containerIds.length; index++)
+		{
+			if (containerIds[index] == containerId)
+			{
+				return containerValues[index];
+			}
+		}
+		return 0;
+	}
+}
@@ -40,6 +40,14 @@ public interface BankBuddyConfig extends Config
 	)
 	String notifications = "notifications";
 
+	@ConfigSection(
+		name = "Debug",
+		description = "Measure Bank Buddy's own performance",
+		position = 4,
+		closedByDefault = true
+	)
+	String debugSettings = "debugSettings";
+
 	// General Settings
 	@ConfigItem(
 		keyName = "enableWelcomeMessage",
@@ -80,7 +88,7 @@ public interface BankBuddyConfig extends Config
 	@ConfigItem(
 		keyName = "enableSearchEnhancements",
 		name = "Enable Search Enhancements",
-		description = "Enhance bank search functionality",
+		description = "Add Bank Buddy menu options and highlight the items matching Highlight Items",
 		section = generalSettings,
 		position = 4
 	)
@@ -178,6 +186,71 @@ public interface BankBuddyConfig extends Config
 		return true;
 	}
 
+	@Range(min = 1, max = 60)
+	@Units(Units.MINUTES)
+	@ConfigItem(
+		keyName = "priceRefreshInterval",
+		name = "Price Refresh Interval",
+		description = "How often cached item prices are refreshed in the background",
+		section = bankFeatures,
+		position = 5
+	)
+	default int priceRefreshInterval()
+	{
+		return 5;
+	}
+
+	@ConfigItem(
+		keyName = "categoryRules",
+		name = "Custom Category Rules",
+		description = "Extra category rules, taking precedence over the built-in ones. One [Category] header "
+			+ "per category followed by ids =, ranges =, keywords = or exclude = lines",
+		section = bankFeatures,
+		position = 6
+	)
+	default String categoryRules()
+	{
+		return "";
+	}
+
+	@ConfigItem(
+		keyName = "showLayoutPlan",
+		name = "Show Layout Plan",
+		description = "Highlight items that are out of place in a tidy layout, grouping each tab by category "
+			+ "and value, and fill in the next pair of slots to swap",
+		section = bankFeatures,
+		position = 7
+	)
+	default boolean showLayoutPlan()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		keyName = "exportFormat",
+		name = "Export Format",
+		description = "File format written by the Export Bank menu option, saved under .runelite/bank-buddy/exports",
+		section = bankFeatures,
+		position = 8
+	)
+	default ExportFormat exportFormat()
+	{
+		return ExportFormat.CSV;
+	}
+
+	@ConfigItem(
+		keyName = "highlightItems",
+		name = "Highlight Items",
+		description = "Highlight bank items whose name contains this text. When nothing matches exactly, "
+			+ "names within a typo or two are outlined instead",
+		section = bankFeatures,
+		position = 9
+	)
+	default String highlightItems()
+	{
+		return "";
+	}
+
 	// Notifications
 	@ConfigItem(
 		keyName = "notifyBankFull",
@@ -229,4 +302,31 @@ public interface BankBuddyConfig extends Config
 	{
 		return 1000000;
 	}
+
+	// Debug
+	@ConfigItem(
+		keyName = "showDebugMetrics",
+		name = "Show Performance Metrics",
+		description = "Show per-event timings and allocations of Bank Buddy in the overlay",
+		section = debugSettings,
+		position = 1
+	)
+	default boolean showDebugMetrics()
+	{
+		return false;
+	}
+
+	@Range(max = 60)
+	@Units(Units.MINUTES)
+	@ConfigItem(
+		keyName = "metricsLogInterval",
+		name = "Log Metrics Every",
+		description = "Write a summary of Bank Buddy's performance metrics to the client log, 0 to disable",
+		section = debugSettings,
+		position = 2
+	)
+	default int metricsLogInterval()
+	{
+		return 0;
+	}
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.bankbuddy;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 import net.runelite.client.ui.overlay.OverlayLayer;
 import net.runelite.client.ui.overlay.OverlayPanel;
@@ -12,84 +13,179 @@ import net.runelite.client.ui.overlay.components.TitleComponent;
 
 public class BankBuddyOverlay extends OverlayPanel
 {
+	private static final Dimension COMPACT_SIZE = new Dimension(150, 0);
+	private static final Dimension FULL_SIZE = new Dimension(200, 0);
+	private static final Dimension DEBUG_SIZE = new Dimension(260, 0);
+	// How often the metrics section is refreshed while shown
+	private static final long DEBUG_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
 	private final BankBuddyPlugin plugin;
 	private final BankBuddyConfig config;
+	private final PluginMetrics metrics;
+
+	// Config values cached until the next config change
+	private volatile boolean configDirty = true;
+	private boolean enabled;
+	private boolean compactMode;
+	private boolean showItemValues;
+	private boolean showBankSpace;
+	private int bankFullThreshold;
+	private Color overlayColor;
+	private boolean showMetrics;
+
+	// Snapshot and account totals the current panel children were built from
+	private BankSnapshot renderedSnapshot;
+	private AccountValue renderedAccount;
+	private BankCapacity renderedCapacity;
+	private long metricsRenderedAt;
 
 	@Inject
-	private BankBuddyOverlay(BankBuddyPlugin plugin, BankBuddyConfig config)
+	private BankBuddyOverlay(BankBuddyPlugin plugin, BankBuddyConfig config, PluginMetrics metrics)
 	{
 		super(plugin);
 		this.plugin = plugin;
 		this.config = config;
-		
+		this.metrics = metrics;
+
 		setPosition(OverlayPosition.TOP_LEFT);
 		setLayer(OverlayLayer.ABOVE_WIDGETS);
 		setResizable(true);
+		// Children are rebuilt only when the snapshot or config changes
+		setClearChildren(false);
+	}
+
+	/**
+	 * Marks the cached config values and panel contents as stale
+	 */
+	public void invalidate()
+	{
+		configDirty = true;
 	}
 
 	@Override
 	public Dimension render(Graphics2D graphics)
 	{
-		if (!config.enableBankOrganization() || !plugin.isBankOpen())
+		metrics.begin(PluginMetrics.Metric.OVERLAY_RENDER);
+		try
+		{
+			return renderPanel(graphics);
+		}
+		finally
+		{
+			metrics.end(PluginMetrics.Metric.OVERLAY_RENDER);
+		}
+	}
+
+	private Dimension renderPanel(Graphics2D graphics)
+	{
+		if (configDirty)
+		{
+			configDirty = false;
+			loadConfig();
+			renderedSnapshot = null;
+		}
+
+		if (!enabled || !plugin.isBankOpen())
 		{
 			return null;
 		}
 
+		BankSnapshot bank = plugin.getBankSnapshot();
+		AccountValue account = plugin.getAccountValue();
+		BankCapacity capacity = plugin.getBankCapacity();
+		long now = System.nanoTime();
+		if (bank != renderedSnapshot || account != renderedAccount || capacity != renderedCapacity
+			|| (showMetrics && now - metricsRenderedAt >= DEBUG_REFRESH_NANOS))
+		{
+			renderedSnapshot = bank;
+			renderedAccount = account;
+			renderedCapacity = capacity;
+			metricsRenderedAt = now;
+			buildPanel(bank, account, capacity);
+		}
+
+		return super.render(graphics);
+	}
+
+	private void loadConfig()
+	{
+		enabled = config.enableBankOrganization();
+		compactMode = config.compactMode();
+		showItemValues = config.enableItemValues();
+		showBankSpace = config.showBankSpace();
+		bankFullThreshold = config.bankFullThreshold();
+		overlayColor = config.overlayColor();
+		showMetrics = config.showDebugMetrics();
+	}
+
+	private void buildPanel(BankSnapshot bank, AccountValue account, BankCapacity capacity)
+	{
+		panelComponent.getChildren().clear();
+
 		// Build the panel with configurable width
-		int panelWidth = config.compactMode() ? 150 : 200;
-		panelComponent.setPreferredSize(new Dimension(panelWidth, 0));
-		
+		panelComponent.setPreferredSize(showMetrics ? DEBUG_SIZE : compactMode ? COMPACT_SIZE : FULL_SIZE);
+
 		// Title with configurable color
 		panelComponent.getChildren().add(TitleComponent.builder()
 			.text("Bank Buddy")
-			.color(config.overlayColor())
+			.color(overlayColor)
 			.build());
 
 		// Display total bank value
-		if (config.enableItemValues())
+		if (showItemValues)
 		{
-			String valueLabel = config.compactMode() ? "Value:" : "Total Value:";
-			String valueText = config.compactMode() ? 
-				plugin.getFormattedBankValue() : 
-				plugin.getFormattedBankValue() + " gp";
-				
+			String valueLabel = compactMode ? "Value:" : "Total Value:";
+			String valueText = compactMode ?
+				plugin.formatValue(bank.getTotalValue()) :
+				plugin.formatValue(bank.getTotalValue()) + " gp";
+
 			panelComponent.getChildren().add(LineComponent.builder()
 				.left(valueLabel)
 				.right(valueText)
 				.rightColor(Color.GREEN)
 				.build());
+
+			// Only worth a line when something outside the bank is valued
+			if (!compactMode && account.getTotalValue() != bank.getTotalValue())
+			{
+				panelComponent.getChildren().add(LineComponent.builder()
+					.left("Account Value:")
+					.right(plugin.formatValue(account.getTotalValue()) + " gp")
+					.rightColor(Color.GREEN)
+					.build());
+			}
 		}
 
 		// Display item counts
-		if (!config.compactMode())
+		if (!compactMode)
 		{
 			panelComponent.getChildren().add(LineComponent.builder()
 				.left("Total Items:")
-				.right(String.valueOf(plugin.getTotalItems()))
+				.right(String.valueOf(bank.getTotalItems()))
 				.rightColor(Color.WHITE)
 				.build());
 		}
 
-		String uniqueLabel = config.compactMode() ? "Items:" : "Unique Items:";
+		String uniqueLabel = compactMode ? "Items:" : "Unique Items:";
 		panelComponent.getChildren().add(LineComponent.builder()
 			.left(uniqueLabel)
-			.right(String.valueOf(plugin.getUniqueItems()))
+			.right(String.valueOf(bank.getUniqueItems()))
 			.rightColor(Color.YELLOW)
 			.build());
 
 		// Calculate and display bank space utilization
-		if (config.showBankSpace())
+		if (showBankSpace)
 		{
-			int bankSpace = 816; // Max bank slots
-			int usedSlots = plugin.getUniqueItems();
-			double utilization = (double) usedSlots / bankSpace * 100;
+			int bankSpace = capacity.getCapacity();
+			int usedSlots = capacity.getUsedSlots();
+			double utilization = capacity.getUtilization();
 
-			String spaceLabel = config.compactMode() ? "Space:" : "Bank Space:";
-			String spaceText = config.compactMode() ? 
+			String spaceLabel = compactMode ? "Space:" : "Bank Space:";
+			String spaceText = compactMode ?
 				String.format("%.1f%%", utilization) :
 				String.format("%.1f%% (%d/%d)", utilization, usedSlots, bankSpace);
 
-			Color spaceColor = utilization >= config.bankFullThreshold() ? Color.RED : 
+			Color spaceColor = utilization >= bankFullThreshold ? Color.RED :
 							  utilization > 75 ? Color.ORANGE : Color.GREEN;
 
 			panelComponent.getChildren().add(LineComponent.builder()
@@ -99,6 +195,46 @@ public class BankBuddyOverlay extends OverlayPanel
 				.build());
 		}
 
-		return super.render(graphics);
+		if (showMetrics)
+		{
+			buildMetrics();
+		}
+	}
+
+	private void buildMetrics()
+	{
+		panelComponent.getChildren().add(TitleComponent.builder()
+			.text("p50 / p99 per event")
+			.color(Color.LIGHT_GRAY)
+			.build());
+
+		ItemMetadataCache itemCache = plugin.getItemCache();
+		long lookups = itemCache.getHits() + itemCache.getMisses();
+		if (lookups > 0)
+		{
+			panelComponent.getChildren().add(LineComponent.builder()
+				.left("Item cache:")
+				.right(String.format("%.1f%% hits (%d)", 100.0 * itemCache.getHits() / lookups, itemCache.size()))
+				.rightColor(Color.LIGHT_GRAY)
+				.build());
+		}
+
+		for (PluginMetrics.Metric metric : PluginMetrics.Metric.values())
+		{
+			LatencyHistogram histogram = metrics.getHistogram(metric);
+			if (histogram.getCount() == 0)
+			{
+				continue;
+			}
+
+			long allocated = metrics.getAllocatedPerEvent(metric);
+			panelComponent.getChildren().add(LineComponent.builder()
+				.left(metric.getLabel() + ":")
+				.right(PluginMetrics.formatNanos(histogram.getPercentile(0.5)) + " / "
+					+ PluginMetrics.formatNanos(histogram.getPercentile(0.99))
+					+ (allocated < 0 ? "" : " " + allocated + "B"))
+				.rightColor(Color.LIGHT_GRAY)
+				.build());
+		}
 	}
-}
\ No newline at end of file
+}
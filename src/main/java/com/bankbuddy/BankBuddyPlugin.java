@@ -3,29 +3,29 @@ package com.bankbuddy;
 import com.google.inject.Provides;
 import java.awt.Color;
 import java.text.NumberFormat;
-import java.util.HashMap;
 import java.util.Locale;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
 import net.runelite.api.GameState;
 import net.runelite.api.InventoryID;
-import net.runelite.api.Item;
 import net.runelite.api.ItemContainer;
 import net.runelite.api.MenuAction;
-import net.runelite.api.MenuEntry;
+import net.runelite.api.Varbits;
 import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.ItemContainerChanged;
 import net.runelite.api.events.MenuEntryAdded;
 import net.runelite.api.events.MenuOptionClicked;
 import net.runelite.api.events.WidgetLoaded;
+import net.runelite.api.widgets.ComponentID;
+import net.runelite.api.widgets.InterfaceID;
 import net.runelite.api.widgets.Widget;
-import net.runelite.api.widgets.WidgetInfo;
+import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
-import net.runelite.client.game.ItemManager;
+import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.ui.overlay.OverlayManager;
@@ -38,6 +38,30 @@ import net.runelite.client.ui.overlay.OverlayManager;
 )
 public class BankBuddyPlugin extends Plugin
 {
+	// Options added to bank item menus, identified by -1 - their index
+	private static final String[] BANK_MENU_OPTIONS = {
+		"Bank Stats", "Calculate Value", "Valuable Items", "Category Values", "Export Bank"
+	};
+	// Identifier of the Examine op on bank items
+	private static final int BANK_EXAMINE_OP = 10;
+
+	// Containers that exist all the time, unlike those only loaded when opened
+	private static final InventoryID[] CARRIED_CONTAINERS = {InventoryID.INVENTORY, InventoryID.EQUIPMENT};
+
+	// Limit to prevent chat spam
+	private static final int VALUABLE_ITEMS_SHOWN = 5;
+
+	// How much older than a day the sample the 24h change is taken from may be,
+	// one bucket of the history's daily tier
+	private static final long DAY_CHANGE_TOLERANCE = TimeUnit.DAYS.toMillis(1);
+
+	// Item counts of the numbered bank tabs, in the order their items appear in the bank
+	private static final int[] TAB_COUNT_VARBITS = {
+		Varbits.BANK_TAB_ONE_COUNT, Varbits.BANK_TAB_TWO_COUNT, Varbits.BANK_TAB_THREE_COUNT,
+		Varbits.BANK_TAB_FOUR_COUNT, Varbits.BANK_TAB_FIVE_COUNT, Varbits.BANK_TAB_SIX_COUNT,
+		Varbits.BANK_TAB_SEVEN_COUNT, Varbits.BANK_TAB_EIGHT_COUNT, Varbits.BANK_TAB_NINE_COUNT
+	};
+
 	@Inject
 	private Client client;
 
@@ -45,7 +69,7 @@ public class BankBuddyPlugin extends Plugin
 	private BankBuddyConfig config;
 
 	@Inject
-	private ItemManager itemManager;
+	private ItemManagerDataProvider itemManagerData;
 
 	@Inject
 	private OverlayManager overlayManager;
@@ -53,22 +77,80 @@ public class BankBuddyPlugin extends Plugin
 	@Inject
 	private BankBuddyOverlay bankOverlay;
 
+	@Inject
+	private BankLayoutOverlay layoutOverlay;
+
+	@Inject
+	private BankSearchOverlay searchOverlay;
+
+	@Inject
+	private PriceCache priceCache;
+
+	@Inject
+	private ItemCanonicalizer canonicalizer;
+
+	@Inject
+	private BankCapacityTracker capacityTracker;
+
+	@Inject
+	private ValuationPipeline valuationPipeline;
+
+	@Inject
+	private BankSnapshotStore snapshotStore;
+
+	@Inject
+	private BankExporter bankExporter;
+
+	@Inject
+	private ClientThread clientThread;
+
+	@Inject
+	private PluginMetrics metrics;
+
+	private ItemMetadataCache itemData;
 	private BankOrganizer bankOrganizer;
 	private boolean bankOpen = false;
-	private long totalBankValue = 0;
+	// Last snapshot seen by the notification checks, client thread only
+	private BankSnapshot bankValue = BankSnapshot.EMPTY;
 	private long previousBankValue = 0;
-	private int totalItems = 0;
-	private int uniqueItems = 0;
-	private Map<Integer, Integer> itemQuantities = new HashMap<>();
+	private boolean statsRequested = false;
+	// Price snapshot version the bank was last fully valued at
+	private int priceVersion = -1;
+	// Account whose stored snapshot has been loaded, -1 if none
+	private long loadedAccount = -1;
+	private BankValueHistory valueHistory = new BankValueHistory(BankOrganizer.getCategoryCount());
+	// Whether the stored history has been loaded, until then it must not be saved over
+	private boolean historyLoaded = false;
 	private final NumberFormat numberFormat = NumberFormat.getNumberInstance(Locale.US);
 	private boolean bankFullWarningShown = false;
+	private final BankLayoutPlanner layoutPlanner = new BankLayoutPlanner();
+	private final BankSearchIndex searchIndex = new BankSearchIndex();
+	private SearchMatches searchMatches = SearchMatches.EMPTY;
 
 	@Override
 	protected void startUp() throws Exception
 	{
 		log.info("Bank Buddy started!");
+		metrics.configure(config.showDebugMetrics(), config.metricsLogInterval());
+		bankOverlay.invalidate();
+		layoutOverlay.invalidate();
+		searchOverlay.invalidate();
 		overlayManager.add(bankOverlay);
-		bankOrganizer = new BankOrganizer(itemManager);
+		overlayManager.add(layoutOverlay);
+		overlayManager.add(searchOverlay);
+		itemData = new ItemMetadataCache(itemManagerData);
+		bankOrganizer = new BankOrganizer(itemData, canonicalizer::getBaseId);
+		bankOrganizer.setCustomRules(config.categoryRules());
+		priceCache.start(config.priceRefreshInterval());
+		valuationPipeline.setCategorizer(bankOrganizer::categorizeItemOrdinal);
+		valuationPipeline.setValuableThreshold(config.valuableItemThreshold());
+		valuationPipeline.setListener(this::onBankValued);
+
+		if (client.getGameState() == GameState.LOGGED_IN)
+		{
+			loadStoredSnapshot();
+			clientThread.invokeLater(this::captureCarriedContainers);
+		}
 	}
 
 	@Override
@@ -76,15 +158,95 @@ public class BankBuddyPlugin extends Plugin
 	{
 		log.info("Bank Buddy stopped!");
 		overlayManager.remove(bankOverlay);
-		bankOpen = false;
-		resetBankData();
+		overlayManager.remove(layoutOverlay);
+		overlayManager.remove(searchOverlay);
+		valuationPipeline.setListener(null);
+		snapshotStore.flushAsync();
+		loadedAccount = -1;
+		priceCache.stop();
+		priceCache.clear();
+		metrics.stop();
+		metrics.reset();
+		// The planner, index, tracker and pipeline belong to the client thread
+		clientThread.invoke(() ->
+		{
+			bankOpen = false;
+			resetBankData();
+			valuationPipeline.clearAccount();
+		});
+	}
+
+	@Subscribe
+	public void onConfigChanged(ConfigChanged event)
+	{
+		if (!event.getGroup().equals("bankbuddy"))
+		{
+			return;
+		}
+
+		bankOverlay.invalidate();
+		layoutOverlay.invalidate();
+		searchOverlay.invalidate();
+
+		if (event.getKey().equals("priceRefreshInterval"))
+		{
+			priceCache.start(config.priceRefreshInterval());
+		}
+		else if (event.getKey().equals("valuableItemThreshold"))
+		{
+			valuationPipeline.setValuableThreshold(config.valuableItemThreshold());
+		}
+		else if (event.getKey().equals("categoryRules"))
+		{
+			clientThread.invokeLater(() ->
+			{
+				// The organizer is only used on the client thread
+				bankOrganizer.setCustomRules(config.categoryRules());
+				if (bankOpen)
+				{
+					// Every slot is categorized again as it is copied
+					calculateBankValue();
+				}
+			});
+		}
+		else if (event.getKey().equals("showLayoutPlan"))
+		{
+			clientThread.invokeLater(this::updateLayoutPlan);
+		}
+		else if (event.getKey().equals("enableSearchEnhancements"))
+		{
+			clientThread.invokeLater(this::updateSearchIndex);
+		}
+		else if (event.getKey().equals("highlightItems"))
+		{
+			clientThread.invokeLater(this::updateSearch);
+		}
+		else if (event.getKey().equals("showDebugMetrics") || event.getKey().equals("metricsLogInterval"))
+		{
+			metrics.configure(config.showDebugMetrics(), config.metricsLogInterval());
+		}
 	}
 
 	@Subscribe
 	public void onGameStateChanged(GameStateChanged gameStateChanged)
 	{
+		if (gameStateChanged.getGameState() == GameState.LOGIN_SCREEN)
+		{
+			snapshotStore.flushAsync();
+		}
+
+		if (gameStateChanged.getGameState() == GameState.LOGIN_SCREEN
+			|| gameStateChanged.getGameState() == GameState.HOPPING)
+		{
+			// Item compositions may be reloaded, as the ItemManager's own cache assumes
+			itemData.clear();
+			canonicalizer.clear();
+		}
+
 		if (gameStateChanged.getGameState() == GameState.LOGGED_IN)
 		{
+			loadStoredSnapshot();
+
 			if (config.enableWelcomeMessage())
 			{
 				client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", 
@@ -96,11 +258,14 @@ public class BankBuddyPlugin extends Plugin
 	@Subscribe
 	public void onWidgetLoaded(WidgetLoaded widgetLoaded)
 	{
-		if (widgetLoaded.getGroupId() == WidgetInfo.BANK_CONTAINER.getGroupId())
+		if (widgetLoaded.getGroupId() == InterfaceID.BANK)
 		{
 			bankOpen = true;
 			bankFullWarningShown = false; // Reset warning when bank reopens
-			
+			valuationPipeline.invalidate(); // Rebuild from scratch once per bank visit
+			// The item counts are filled in after the interface loads
+			clientThread.invokeLater(() -> capacityTracker.update(bankValue.getUsedSlots()));
+
 			if (config.autoCalculateValue())
 			{
 				calculateBankValue();
@@ -111,56 +276,56 @@ public class BankBuddyPlugin extends Plugin
 	@Subscribe
 	public void onItemContainerChanged(ItemContainerChanged event)
 	{
-		if (event.getInventoryID() == InventoryID.BANK.getId() && bankOpen)
+		int containerId = event.getContainerId();
+		if (containerId == InventoryID.BANK.getId())
+		{
+			if (bankOpen)
+			{
+				calculateBankValue();
+			}
+		}
+		else if (valuationPipeline.isTracked(containerId))
 		{
-			calculateBankValue();
+			// Counted in the account totals only
+			valuationPipeline.submit(containerId, event.getItemContainer().getItems());
+			itemData.ensureCapacity(valuationPipeline.getTrackedSlots());
 		}
 	}
 
 	@Subscribe
 	public void onMenuEntryAdded(MenuEntryAdded event)
 	{
-		if (!config.enableSearchEnhancements() || !bankOpen)
+		metrics.begin(PluginMetrics.Metric.MENU_ENTRY_ADDED);
+		try
 		{
-			return;
+			addBankMenuEntries(event);
 		}
-
-		// Add bank organization menu entries
-		if (event.getOption().equals("Examine") && event.getTarget().contains("Bank"))
+		finally
 		{
-			MenuEntry[] entries = client.getMenuEntries();
-			MenuEntry[] newEntries = new MenuEntry[entries.length + 4];
-			System.arraycopy(entries, 0, newEntries, 0, entries.length);
-
-			// Add "Show Bank Stats" option
-			MenuEntry statsEntry = client.createMenuEntry(-1);
-			statsEntry.setOption("Bank Stats");
-			statsEntry.setTarget(event.getTarget());
-			statsEntry.setType(MenuAction.RUNELITE);
-			newEntries[entries.length] = statsEntry;
-
-			// Add "Calculate Total Value" option
-			MenuEntry valueEntry = client.createMenuEntry(-2);
-			valueEntry.setOption("Calculate Value");
-			valueEntry.setTarget(event.getTarget());
-			valueEntry.setType(MenuAction.RUNELITE);
-			newEntries[entries.length + 1] = valueEntry;
-
-			// Add "Show Valuable Items" option
-			MenuEntry valuableEntry = client.createMenuEntry(-3);
-			valuableEntry.setOption("Valuable Items");
-			valuableEntry.setTarget(event.getTarget());
-			valuableEntry.setType(MenuAction.RUNELITE);
-			newEntries[entries.length + 2] = valuableEntry;
+			metrics.end(PluginMetrics.Metric.MENU_ENTRY_ADDED);
+		}
+	}
 
-			// Add "Category Values" option
-			MenuEntry categoryEntry = client.createMenuEntry(-4);
-			categoryEntry.setOption("Category Values");
-			categoryEntry.setTarget(event.getTarget());
-			categoryEntry.setType(MenuAction.RUNELITE);
-			newEntries[entries.length + 3] = categoryEntry;
+	private void addBankMenuEntries(MenuEntryAdded event)
+	{
+		// Integer checks first: this runs for every entry of every menu built
+		if (event.getActionParam1() != ComponentID.BANK_ITEM_CONTAINER
+			|| event.getType() != MenuAction.CC_OP_LOW_PRIORITY.getId()
+			|| event.getIdentifier() != BANK_EXAMINE_OP
+			|| !bankOpen || !config.enableSearchEnhancements())
+		{
+			return;
+		}
 
-			client.setMenuEntries(newEntries);
+		// Examine is added once per menu build, so this adds the batch once.
+		// New entries are appended in place, the menu array is never copied.
+		for (int option = 0; option < BANK_MENU_OPTIONS.length; option++)
+		{
+			client.createMenuEntry(-1)
+				.setOption(BANK_MENU_OPTIONS[option])
+				.setTarget(event.getTarget())
+				.setIdentifier(-(option + 1))
+				.setType(MenuAction.RUNELITE);
 		}
 	}
 
@@ -178,35 +343,83 @@ public class BankBuddyPlugin extends Plugin
 				displayDetailedBankStats();
 				break;
 			case -2: // Calculate Value
+				priceCache.requestRefresh();
+				valuationPipeline.invalidate();
+				statsRequested = true; // Shown once the valuation is published
 				calculateBankValue();
-				displayBankStats();
 				break;
 			case -3: // Valuable Items
-				showValuableItems();
+				metrics.begin(PluginMetrics.Metric.ORGANIZER_QUERY);
+				try
+				{
+					showValuableItems();
+				}
+				finally
+				{
+					metrics.end(PluginMetrics.Metric.ORGANIZER_QUERY);
+				}
 				break;
 			case -4: // Category Values
-				showCategoryValues();
+				metrics.begin(PluginMetrics.Metric.ORGANIZER_QUERY);
+				try
+				{
+					showCategoryValues();
+				}
+				finally
+				{
+					metrics.end(PluginMetrics.Metric.ORGANIZER_QUERY);
+				}
+				break;
+			case -5: // Export Bank
+				exportBank();
 				break;
 		}
 	}
 
 	private void displayDetailedBankStats()
 	{
+		BankSnapshot bank = valuationPipeline.getSnapshot();
 		String message = String.format("=== Bank Buddy Stats === | Value: %s gp | Total: %d items | Unique: %d items | Space: %.1f%% used",
-			getFormattedBankValue(), totalItems, uniqueItems, (double) uniqueItems / 816 * 100);
+			formatValue(bank.getTotalValue()), bank.getTotalItems(), bank.getUniqueItems(),
+			capacityTracker.getCapacity().getUtilization());
 		client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", message, null);
+
+		AccountValue account = valuationPipeline.getAccountValue();
+		if (account.getTotalValue() != bank.getTotalValue())
+		{
+			client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", String.format(
+				"Account: %s gp | Carried: %s gp | Unique: %d items",
+				formatValue(account.getTotalValue()),
+				formatValue(account.getContainerValue(InventoryID.INVENTORY.getId())
+					+ account.getContainerValue(InventoryID.EQUIPMENT.getId())),
+				account.getUniqueItems()), null);
+		}
+
+		long now = System.currentTimeMillis();
+		long weekAgo = now - TimeUnit.DAYS.toMillis(7);
+		long low = valueHistory.minValue(weekAgo, now);
+		if (low >= 0)
+		{
+			client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", "7 day range: "
+				+ numberFormat.format(low) + " - " + numberFormat.format(valueHistory.maxValue(weekAgo, now)) + " gp", null);
+		}
 	}
 
 	private void showValuableItems()
 	{
-		ItemContainer bankContainer = client.getItemContainer(InventoryID.BANK);
-		if (bankContainer == null)
+		BankSnapshot bank = valuationPipeline.getSnapshot();
+		if (bank.isEmpty())
 		{
 			return;
 		}
 
-		Map<Integer, Long> valuableItems = bankOrganizer.findValuableItems(
-			bankContainer.getItems(), config.valuableItemThreshold());
+		ValuableItems valuableItems = bank.getValuableItems();
+		if (valuableItems == null || valuableItems.getThreshold() != config.valuableItemThreshold())
+		{
+			// Stored snapshots and ones valued before a threshold change need a scan
+			valuableItems = bankOrganizer.findValuableItems(
+				bank, config.valuableItemThreshold(), VALUABLE_ITEMS_SHOWN);
+		}
 
 		if (valuableItems.isEmpty())
 		{
@@ -218,45 +431,76 @@ public class BankBuddyPlugin extends Plugin
 		client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", 
 			"=== Valuable Items (>" + numberFormat.format(config.valuableItemThreshold()) + " gp) ===", null);
 
-		int count = 0;
-		for (Map.Entry<Integer, Long> entry : valuableItems.entrySet())
+		int shown = Math.min(valuableItems.size(), VALUABLE_ITEMS_SHOWN);
+		for (int rank = 0; rank < shown; rank++)
 		{
-			if (count >= 5) // Limit to prevent spam
-			{
-				client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", 
-					"... and " + (valuableItems.size() - 5) + " more valuable items", null);
-				break;
-			}
+			String itemName = itemData.getName(valuableItems.getItemId(rank));
+			client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", 
+				itemName + ": " + numberFormat.format(valuableItems.getValue(rank)) + " gp", null);
+		}
 
-			String itemName = itemManager.getItemComposition(entry.getKey()).getName();
+		int remaining = valuableItems.getMatchCount() - shown;
+		if (remaining > 0)
+		{
 			client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", 
-				itemName + ": " + numberFormat.format(entry.getValue()) + " gp", null);
-			count++;
+				"... and " + remaining + " more valuable items", null);
 		}
 	}
 
 	private void showCategoryValues()
 	{
-		ItemContainer bankContainer = client.getItemContainer(InventoryID.BANK);
-		if (bankContainer == null)
+		BankSnapshot bank = valuationPipeline.getSnapshot();
+		if (bank.isEmpty())
 		{
 			return;
 		}
 
 		client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", "=== Bank Category Values ===", null);
 
-		String[] categories = BankOrganizer.getCategories();
-		for (String category : categories)
+		CategoryBreakdown breakdown = categoriesOf(bank);
+		for (int category = 0; category < breakdown.getCategoryCount(); category++)
 		{
-			long categoryValue = bankOrganizer.getCategoryValue(bankContainer.getItems(), category);
+			long categoryValue = breakdown.getValue(category);
 			if (categoryValue > 0)
 			{
+				String topItem = itemData.getName(breakdown.getTopItemId(category, 0));
 				client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", 
-					category + ": " + numberFormat.format(categoryValue) + " gp", null);
+					BankOrganizer.getCategoryName(category) + ": " + numberFormat.format(categoryValue) + " gp ("
+						+ breakdown.getItemCount(category) + " items, top: " + topItem + ")", null);
 			}
 		}
 	}
 
+	private void exportBank()
+	{
+		BankSnapshot bank = valuationPipeline.getSnapshot();
+		if (bank.isEmpty())
+		{
+			return;
+		}
+
+		// Names and categories need the client thread; the rows are written on the executor
+		String[] names = new String[bank.size()];
+		int[] categories = new int[bank.size()];
+		for (int slot = 0; slot < bank.size(); slot++)
+		{
+			int itemId = bank.getItemId(slot);
+			if (itemId != -1)
+			{
+				names[slot] = itemData.getName(itemId);
+				categories[slot] = bankOrganizer.categorizeItemOrdinal(itemId);
+			}
+		}
+
+		boolean started = bankExporter.exportAsync(bank, names, categories, config.exportFormat(), file ->
+			clientThread.invokeLater(() -> client.addChatMessage(ChatMessageType.GAMEMESSAGE, "",
+				file == null ? "Bank export failed, see the client log for details." : "Bank exported to " + file, null)));
+		if (!started)
+		{
+			client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", "A bank export is already in progress.", null);
+		}
+	}
+
 	private void calculateBankValue()
 	{
 		ItemContainer bankContainer = client.getItemContainer(InventoryID.BANK);
@@ -266,34 +510,47 @@ public class BankBuddyPlugin extends Plugin
 			return;
 		}
 
-		// Store previous value for change tracking
-		previousBankValue = totalBankValue;
-		totalBankValue = 0;
-		totalItems = 0;
-		uniqueItems = 0;
-		itemQuantities.clear();
+		// Re-price every slot once refreshed prices have been published
+		if (priceCache.getVersion() != priceVersion)
+		{
+			priceVersion = priceCache.getVersion();
+			valuationPipeline.invalidate();
+		}
 
-		Item[] items = bankContainer.getItems();
-		for (Item item : items)
+		// The pipeline copies the items here and values them on a worker
+		metrics.begin(PluginMetrics.Metric.CALCULATE_BANK_VALUE);
+		try
 		{
-			if (item.getId() == -1)
-			{
-				continue;
-			}
+			valuationPipeline.submit(InventoryID.BANK.getId(), bankContainer.getItems());
+			itemData.ensureCapacity(valuationPipeline.getTrackedSlots());
+		}
+		finally
+		{
+			metrics.end(PluginMetrics.Metric.CALCULATE_BANK_VALUE);
+		}
+	}
 
-			int itemId = item.getId();
-			int quantity = item.getQuantity();
-			
-			// Track item quantities
-			itemQuantities.put(itemId, itemQuantities.getOrDefault(itemId, 0) + quantity);
-			
-			// Calculate value
-			long itemPrice = itemManager.getItemPrice(itemId);
-			totalBankValue += (long) itemPrice * quantity;
-			totalItems += quantity;
+	private void onBankValued(BankSnapshot snapshot)
+	{
+		if (!bankOpen)
+		{
+			return;
+		}
+
+		// Store previous value for change tracking
+		previousBankValue = bankValue.getTotalValue();
+		bankValue = snapshot;
+		capacityTracker.update(snapshot.getUsedSlots());
+
+		valueHistory.record(snapshot.getTimestamp(), snapshot.getTotalValue(), categoriesOf(snapshot));
+
+		if (loadedAccount != -1)
+		{
+			snapshotStore.save(loadedAccount, snapshot, historyLoaded ? valueHistory : null);
 		}
 
-		uniqueItems = itemQuantities.size();
+		updateLayoutPlan();
+		updateSearchIndex();
 
 		// Check for significant value changes
 		checkValueChanges();
@@ -301,12 +558,23 @@ public class BankBuddyPlugin extends Plugin
 		// Check for bank space warnings
 		checkBankSpace();
 
-		if (config.enableItemValues() && config.autoCalculateValue())
+		if (statsRequested || (config.enableItemValues() && config.autoCalculateValue()))
 		{
+			statsRequested = false;
 			displayBankStats();
 		}
 	}
 
+	/**
+	 * Gets the category breakdown kept with a snapshot, scanning the bank only
+	 * for snapshots that were not indexed
+	 */
+	private CategoryBreakdown categoriesOf(BankSnapshot bank)
+	{
+		CategoryBreakdown breakdown = bank.getCategories();
+		return breakdown != null ? breakdown : bankOrganizer.aggregateCategories(bank, 1);
+	}
+
 	private void checkValueChanges()
 	{
 		if (!config.showValueChanges() || previousBankValue == 0)
@@ -314,12 +582,23 @@ public class BankBuddyPlugin extends Plugin
 			return;
 		}
 
+		long totalBankValue = bankValue.getTotalValue();
 		long valueDifference = Math.abs(totalBankValue - previousBankValue);
 		if (valueDifference >= config.valueChangeThreshold())
 		{
 			String changeText = totalBankValue > previousBankValue ? "increased" : "decreased";
 			String message = String.format("Bank value %s by %s gp!", 
 				changeText, numberFormat.format(valueDifference));
+
+			// Add the change over the last day when there is a sample from around then
+			long dayAgo = valueHistory.valueAt(bankValue.getTimestamp() - TimeUnit.DAYS.toMillis(1),
+				DAY_CHANGE_TOLERANCE);
+			if (dayAgo >= 0)
+			{
+				long dayChange = totalBankValue - dayAgo;
+				message += " (24h: " + (dayChange >= 0 ? "+" : "-")
+					+ numberFormat.format(Math.abs(dayChange)) + " gp)";
+			}
 			
 			client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", message, null);
 		}
@@ -332,8 +611,7 @@ public class BankBuddyPlugin extends Plugin
 			return;
 		}
 
-		int bankSpace = 816; // Max bank slots
-		double utilization = (double) uniqueItems / bankSpace * 100;
+		double utilization = capacityTracker.getCapacity().getUtilization();
 
 		if (utilization >= config.bankFullThreshold())
 		{
@@ -350,20 +628,171 @@ public class BankBuddyPlugin extends Plugin
 			return;
 		}
 
-		String valueText = numberFormat.format(totalBankValue);
+		String valueText = numberFormat.format(bankValue.getTotalValue());
 		String message = String.format("Bank Value: %s gp | Items: %d (%d unique)", 
-			valueText, totalItems, uniqueItems);
+			valueText, bankValue.getTotalItems(), bankValue.getUniqueItems());
 		
 		client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", message, null);
 	}
 
+	/**
+	 * Warm-loads the last stored snapshot for the current account, so totals and
+	 * value change tracking are available before the bank is valued again
+	 */
+	private void loadStoredSnapshot()
+	{
+		long accountHash = client.getAccountHash();
+		if (accountHash == -1 || accountHash == loadedAccount)
+		{
+			return;
+		}
+
+		if (loadedAccount != -1)
+		{
+			// Switched accounts, don't mix the previous bank into this one
+			snapshotStore.flushAsync();
+			resetBankData();
+			valuationPipeline.clearAccount();
+			capacityTracker.reset();
+			clientThread.invokeLater(this::captureCarriedContainers);
+			previousBankValue = 0;
+		}
+		loadedAccount = accountHash;
+		valueHistory = new BankValueHistory(BankOrganizer.getCategoryCount());
+		historyLoaded = false;
+
+		snapshotStore.loadHistoryAsync(accountHash, BankOrganizer.getCategoryCount(), history ->
+			clientThread.invokeLater(() ->
+			{
+				if (accountHash != loadedAccount)
+				{
+					return;
+				}
+
+				// Keep anything recorded while loading if there was no stored history
+				if (!history.isEmpty())
+				{
+					valueHistory = history;
+				}
+				historyLoaded = true;
+			}));
+
+		snapshotStore.loadAsync(accountHash, stored -> clientThread.invokeLater(() ->
+		{
+			if (stored.isEmpty() || accountHash != loadedAccount || !valuationPipeline.seed(stored))
+			{
+				return;
+			}
+
+			bankValue = stored;
+			capacityTracker.update(stored.getUsedSlots());
+			log.debug("Loaded stored bank snapshot worth {} gp", stored.getTotalValue());
+		}));
+	}
+
+	/**
+	 * Re-plans the tabs whose contents changed since the last plan
+	 */
+	private void updateLayoutPlan()
+	{
+		if (!config.showLayoutPlan() || !bankOpen)
+		{
+			layoutPlanner.clear();
+			return;
+		}
+
+		metrics.begin(PluginMetrics.Metric.LAYOUT_PLAN);
+		try
+		{
+			int[] tabSizes = new int[TAB_COUNT_VARBITS.length];
+			for (int tab = 0; tab < tabSizes.length; tab++)
+			{
+				tabSizes[tab] = client.getVarbitValue(TAB_COUNT_VARBITS[tab]);
+			}
+			layoutPlanner.update(bankValue, tabSizes, bankOrganizer::categorizeItemOrdinal);
+		}
+		finally
+		{
+			metrics.end(PluginMetrics.Metric.LAYOUT_PLAN);
+		}
+	}
+
+	/**
+	 * Values the inventory and equipment, which only report changes, so the
+	 * account totals include them without waiting for one
+	 */
+	private void captureCarriedContainers()
+	{
+		for (InventoryID inventoryId : CARRIED_CONTAINERS)
+		{
+			ItemContainer container = client.getItemContainer(inventoryId);
+			if (container != null)
+			{
+				valuationPipeline.submit(inventoryId.getId(), container.getItems());
+			}
+		}
+	}
+
+	/**
+	 * Re-indexes the names of the slots that changed since the last update and
+	 * runs the current search again
+	 */
+	private void updateSearchIndex()
+	{
+		if (!config.enableSearchEnhancements() || !bankOpen)
+		{
+			searchIndex.clear();
+			searchMatches = SearchMatches.EMPTY;
+			return;
+		}
+
+		if (searchIndex.update(bankValue, itemData) && !searchMatches.getQuery().isEmpty())
+		{
+			searchMatches = SearchMatches.EMPTY;
+			updateSearch();
+		}
+	}
+
+	/**
+	 * Matches the highlight query against the index, at most once per change
+	 * of the query. The query is the plugin's own rather than the game's bank
+	 * search, which filters out everything but exact substring matches and
+	 * would hide the near misses.
+	 */
+	private void updateSearch()
+	{
+		String query = bankOpen && config.enableSearchEnhancements() ? config.highlightItems().trim() : "";
+		if (query.isEmpty())
+		{
+			searchMatches = SearchMatches.EMPTY;
+			return;
+		}
+		if (query.equals(searchMatches.getQuery()))
+		{
+			return;
+		}
+
+		metrics.begin(PluginMetrics.Metric.SEARCH);
+		try
+		{
+			searchMatches = searchIndex.search(query);
+		}
+		finally
+		{
+			metrics.end(PluginMetrics.Metric.SEARCH);
+		}
+	}
+
 	private void resetBankData()
 	{
-		previousBankValue = totalBankValue;
-		totalBankValue = 0;
-		totalItems = 0;
-		uniqueItems = 0;
-		itemQuantities.clear();
+		layoutPlanner.clear();
+		searchIndex.clear();
+		searchMatches = SearchMatches.EMPTY;
+		previousBankValue = bankValue.getTotalValue();
+		bankValue = BankSnapshot.EMPTY;
+		statsRequested = false;
+		valuationPipeline.clear();
+		capacityTracker.clear();
 		bankFullWarningShown = false;
 	}
 
@@ -373,24 +802,84 @@ public class BankBuddyPlugin extends Plugin
 		return bankOpen;
 	}
 
+	/**
+	 * Gets the current layout plan, empty unless the plan is enabled and the
+	 * bank is open. Client thread only.
+	 */
+	public LayoutPlan getLayoutPlan()
+	{
+		return layoutPlanner.getPlan();
+	}
+
+	/**
+	 * Gets the slots matching the current bank search, empty unless search
+	 * enhancements are enabled and the bank is being searched. Client thread
+	 * only.
+	 */
+	public SearchMatches getSearchMatches()
+	{
+		return searchMatches;
+	}
+
+	/**
+	 * Gets the bank's used slots and capacity as of the latest snapshot.
+	 * Client thread only.
+	 */
+	public BankCapacity getBankCapacity()
+	{
+		return capacityTracker.getCapacity();
+	}
+
+	/**
+	 * Gets the item metadata cache, for its hit and miss counts. Client thread
+	 * only.
+	 */
+	public ItemMetadataCache getItemCache()
+	{
+		return itemData;
+	}
+
+	/**
+	 * Gets the latest published bank snapshot. Read it once per use so all
+	 * figures come from the same bank state.
+	 */
+	public BankSnapshot getBankSnapshot()
+	{
+		return valuationPipeline.getSnapshot();
+	}
+
+	/**
+	 * Gets the totals of the bank and every other tracked container, as last
+	 * seen
+	 */
+	public AccountValue getAccountValue()
+	{
+		return valuationPipeline.getAccountValue();
+	}
+
 	public long getTotalBankValue()
 	{
-		return totalBankValue;
+		return valuationPipeline.getSnapshot().getTotalValue();
 	}
 
-	public int getTotalItems()
+	public long getTotalItems()
 	{
-		return totalItems;
+		return valuationPipeline.getSnapshot().getTotalItems();
 	}
 
 	public int getUniqueItems()
 	{
-		return uniqueItems;
+		return valuationPipeline.getSnapshot().getUniqueItems();
 	}
 
 	public String getFormattedBankValue()
 	{
-		return numberFormat.format(totalBankValue);
+		return formatValue(getTotalBankValue());
+	}
+
+	public String formatValue(long value)
+	{
+		return numberFormat.format(value);
 	}
 
 	@Provides
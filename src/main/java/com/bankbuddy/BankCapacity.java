@@ -0,0 +1,49 @@
+package com.bankbuddy;
+
+/**
+ * Bank slots in use against the bank's capacity, with the utilization worked
+ * out once when read
+ */
+public final class BankCapacity
+{
+	// Capacity assumed until the bank interface has been seen
+	public static final int DEFAULT_CAPACITY = 816;
+	public static final BankCapacity EMPTY = new BankCapacity(0, DEFAULT_CAPACITY);
+
+	private final int usedSlots;
+	private final int capacity;
+	private final double utilization;
+
+	BankCapacity(int usedSlots, int capacity)
+	{
+		this.usedSlots = usedSlots;
+		this.capacity = capacity;
+		this.utilization = capacity > 0 ? (double) usedSlots / capacity * 100 : 0;
+	}
+
+	/**
+	 * Gets the number of slots taken up by items or placeholders
+	 */
+	public int getUsedSlots()
+	{
+		return usedSlots;
+	}
+
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+	public int getFreeSlots()
+	{
+		return Math.max(0, capacity - usedSlots);
+	}
+
+	/**
+	 * Gets the used share of the capacity, as a percentage
+	 */
+	public double getUtilization()
+	{
+		return utilization;
+	}
+}
@@ -0,0 +1,105 @@
+package com.bankbuddy;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import net.runelite.api.Client;
+import net.runelite.api.widgets.ComponentID;
+import net.runelite.api.widgets.Widget;
+
+/**
+ * Tracks how full the bank is from the item counts shown by the bank
+ * interface, which reflect the account's actual capacity. While the interface
+ * is not shown, both counts stay at the last ones read. Until the interface has
+ * been read, the used slots come from the bank snapshot and the capacity is
+ * {@link BankCapacity#DEFAULT_CAPACITY}.
+ *
+ * Not thread safe; used on the client thread.
+ */
+@Singleton
+public class BankCapacityTracker
+{
+	private final Client client;
+	private BankCapacity current = BankCapacity.EMPTY;
+	// Whether the used slots were read from the interface rather than a snapshot
+	private boolean usedFromInterface = false;
+
+	@Inject
+	BankCapacityTracker(Client client)
+	{
+		this.client = client;
+	}
+
+	/**
+	 * Reads the counts again after a bank change
+	 *
+	 * @param usedSlots used slots of the latest snapshot, for when the bank
+	 *                  interface has not been read yet
+	 * @return the capacity, the same instance as before if nothing changed
+	 */
+	public BankCapacity update(int usedSlots)
+	{
+		int capacity = readCount(ComponentID.BANK_ITEM_COUNT_BOTTOM, current.getCapacity());
+		int used = readCount(ComponentID.BANK_ITEM_COUNT_TOP, -1);
+		if (used >= 0)
+		{
+			usedFromInterface = true;
+		}
+		else
+		{
+			used = usedFromInterface ? current.getUsedSlots() : usedSlots;
+		}
+
+		if (capacity <= 0)
+		{
+			capacity = current.getCapacity();
+		}
+
+		if (used != current.getUsedSlots() || capacity != current.getCapacity())
+		{
+			current = new BankCapacity(used, capacity);
+		}
+		return current;
+	}
+
+	public BankCapacity getCapacity()
+	{
+		return current;
+	}
+
+	/**
+	 * Forgets the used slots, keeping the capacity, which belongs to the account
+	 * rather than the bank's contents
+	 */
+	public void clear()
+	{
+		current = new BankCapacity(0, current.getCapacity());
+		usedFromInterface = false;
+	}
+
+	/**
+	 * Forgets the capacity too, as when switching accounts
+	 */
+	public void reset()
+	{
+		current = BankCapacity.EMPTY;
+		usedFromInterface = false;
+	}
+
+	private int readCount(int componentId, int fallback)
+	{
+		Widget widget = client.getWidget(componentId);
+		if (widget == null || widget.isHidden() || widget.getText() == null)
+		{
+			return fallback;
+		}
+
+		try
+		{
+			return Integer.parseInt(widget.getText().trim());
+		}
+		catch (NumberFormatException ex)
+		{
+			return fallback;
+		}
+	}
+}
@@ -0,0 +1,292 @@
+package com.bankbuddy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exports the bank as CSV or JSON, one row per occupied slot with its slot,
+ * item id, name, quantity, unit price, stack value and category.
+ *
+ * Rows are encoded straight from the snapshot into one reused buffer, which is
+ * drained to a file channel whenever it fills, so an export allocates nothing
+ * per row and holds a fixed amount of memory however large the bank is. Like
+ * stored snapshots, the file is written under a temporary name and moved into
+ * place once complete.
+ */
+@Slf4j
+@Singleton
+public class BankExporter
+{
+	static final File EXPORT_DIR = new File(BankSnapshotStore.STORE_DIR, "exports");
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	// Most bytes a single character can encode to, a JSON \\u escape
+	private static final int MAX_CHAR_BYTES = 6;
+	private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+	private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+	private final ScheduledExecutorService executor;
+	private final AtomicBoolean exporting = new AtomicBoolean();
+
+	// Reused by every export, only touched by the one in progress
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private final byte[] digits = new byte[20];
+	private ExportFormat format;
+	private FileChannel channel;
+
+	@Inject
+	BankExporter(ScheduledExecutorService executor)
+	{
+		this.executor = executor;
+	}
+
+	/**
+	 * Writes the bank to a new file in the export directory on the executor
+	 *
+	 * @param names item name per slot, null for empty slots
+	 * @param categories category ordinal per slot
+	 * @param callback receives the written file, or null if the export failed
+	 * @return false if an export is already in progress
+	 */
+	public boolean exportAsync(BankSnapshot bank, String[] names, int[] categories, ExportFormat format,
+		Consumer<File> callback)
+	{
+		if (!exporting.compareAndSet(false, true))
+		{
+			return false;
+		}
+
+		executor.execute(() ->
+		{
+			File file = new File(EXPORT_DIR,
+				"bank-" + LocalDateTime.now().format(FILE_TIMESTAMP) + "." + format.getExtension());
+			try
+			{
+				export(bank, names, categories, format, file.toPath());
+				callback.accept(file);
+			}
+			catch (IOException ex)
+			{
+				log.warn("Unable to export bank to {}", file, ex);
+				callback.accept(null);
+			}
+			finally
+			{
+				exporting.set(false);
+			}
+		});
+		return true;
+	}
+
+	synchronized void export(BankSnapshot bank, String[] names, int[] categories, ExportFormat format, Path target)
+		throws IOException
+	{
+		Files.createDirectories(target.getParent());
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+		this.format = format;
+		buffer.clear();
+		try (FileChannel out = FileChannel.open(temp,
+			StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+		{
+			channel = out;
+			writeRows(bank, names, categories);
+			drain();
+		}
+		catch (IOException ex)
+		{
+			Files.deleteIfExists(temp);
+			throw ex;
+		}
+		finally
+		{
+			channel = null;
+		}
+
+		try
+		{
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (AtomicMoveNotSupportedException ex)
+		{
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private void writeRows(BankSnapshot bank, String[] names, int[] categories) throws IOException
+	{
+		boolean json = format == ExportFormat.JSON;
+		putAscii(json ? "[" : "slot,id,name,quantity,price,value,category");
+
+		boolean first = true;
+		for (int slot = 0; slot < bank.size(); slot++)
+		{
+			int itemId = bank.getItemId(slot);
+			if (itemId == -1)
+			{
+				continue;
+			}
+
+			String name = names[slot] == null ? "" : names[slot];
+			String category = BankOrganizer.getCategoryName(categories[slot]);
+			if (json)
+			{
+				putAscii(first ? "\n{\"slot\":" : ",\n{\"slot\":");
+				putLong(slot);
+				putAscii(",\"id\":");
+				putLong(itemId);
+				putAscii(",\"name\":");
+				putQuoted(name);
+				putAscii(",\"quantity\":");
+				putLong(bank.getQuantity(slot));
+				putAscii(",\"price\":");
+				putLong(bank.getPrice(slot));
+				putAscii(",\"value\":");
+				putLong(bank.getStackValue(slot));
+				putAscii(",\"category\":");
+				putQuoted(category);
+				putAscii("}");
+			}
+			else
+			{
+				putAscii("\n");
+				putLong(slot);
+				putAscii(",");
+				putLong(itemId);
+				putAscii(",");
+				putQuoted(name);
+				putAscii(",");
+				putLong(bank.getQuantity(slot));
+				putAscii(",");
+				putLong(bank.getPrice(slot));
+				putAscii(",");
+				putLong(bank.getStackValue(slot));
+				putAscii(",");
+				putQuoted(category);
+			}
+			first = false;
+		}
+		putAscii(json ? "\n]\n" : "\n");
+	}
+
+	/**
+	 * Writes text that needs no escaping, such as field separators
+	 */
+	private void putAscii(String text) throws IOException
+	{
+		for (int i = 0; i < text.length(); i++)
+		{
+			reserve(1);
+			buffer.put((byte) text.charAt(i));
+		}
+	}
+
+	private void putLong(long value) throws IOException
+	{
+		reserve(digits.length + 1);
+		if (value < 0)
+		{
+			buffer.put((byte) '-');
+			value = -value;
+		}
+
+		int start = digits.length;
+		do
+		{
+			digits[--start] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		while (value != 0);
+		buffer.put(digits, start, digits.length - start);
+	}
+
+	/**
+	 * Writes text as a quoted CSV field or JSON string, encoded as UTF-8
+	 */
+	private void putQuoted(String text) throws IOException
+	{
+		boolean json = format == ExportFormat.JSON;
+		reserve(1);
+		buffer.put((byte) '"');
+		int length = text.length();
+		for (int i = 0; i < length; i++)
+		{
+			char c = text.charAt(i);
+			reserve(MAX_CHAR_BYTES);
+			if (c == '"')
+			{
+				// CSV doubles quotes, JSON escapes them
+				buffer.put((byte) (json ? '\\' : '"')).put((byte) '"');
+			}
+			else if (json && c == '\\')
+			{
+				buffer.put((byte) '\\').put((byte) '\\');
+			}
+			else if (json && c < 0x20)
+			{
+				buffer.put((byte) '\\').put((byte) 'u').put((byte) '0').put((byte) '0')
+					.put(HEX[c >> 4]).put(HEX[c & 0xF]);
+			}
+			else if (c < 0x80)
+			{
+				buffer.put((byte) c);
+			}
+			else if (c < 0x800)
+			{
+				buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+			}
+			else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1)))
+			{
+				int codePoint = Character.toCodePoint(c, text.charAt(++i));
+				buffer.put((byte) (0xF0 | codePoint >> 18)).put((byte) (0x80 | codePoint >> 12 & 0x3F))
+					.put((byte) (0x80 | codePoint >> 6 & 0x3F)).put((byte) (0x80 | codePoint & 0x3F));
+			}
+			else if (Character.isSurrogate(c))
+			{
+				// Half a pair has no encoding
+				buffer.put((byte) '?');
+			}
+			else
+			{
+				buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+			}
+		}
+		reserve(1);
+		buffer.put((byte) '"');
+	}
+
+	/**
+	 * Makes room for the given number of bytes, draining the buffer if needed
+	 */
+	private void reserve(int bytes) throws IOException
+	{
+		if (buffer.remaining() < bytes)
+		{
+			drain();
+		}
+	}
+
+	private void drain() throws IOException
+	{
+		buffer.flip();
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
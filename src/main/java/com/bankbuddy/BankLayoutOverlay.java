@@ -0,0 +1,70 @@
+package com.bankbuddy;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import javax.inject.Inject;
+import net.runelite.api.widgets.WidgetItem;
+import net.runelite.client.ui.overlay.WidgetItemOverlay;
+
+/**
+ * Highlights the bank layout plan: items out of place get an outline, and the
+ * pair of slots to swap next is filled in
+ */
+public class BankLayoutOverlay extends WidgetItemOverlay
+{
+	private static final int FILL_ALPHA = 70;
+
+	private final BankBuddyPlugin plugin;
+	private final BankBuddyConfig config;
+
+	// Config values cached until the next config change
+	private volatile boolean configDirty = true;
+	private boolean enabled;
+	private Color outlineColor;
+	private Color fillColor;
+
+	@Inject
+	private BankLayoutOverlay(BankBuddyPlugin plugin, BankBuddyConfig config)
+	{
+		this.plugin = plugin;
+		this.config = config;
+		showOnBank();
+	}
+
+	/**
+	 * Marks the cached config values as stale
+	 */
+	public void invalidate()
+	{
+		configDirty = true;
+	}
+
+	@Override
+	public void renderItemOverlay(Graphics2D graphics, int itemId, WidgetItem widgetItem)
+	{
+		if (configDirty)
+		{
+			configDirty = false;
+			enabled = config.showLayoutPlan();
+			outlineColor = config.overlayColor();
+			fillColor = new Color(outlineColor.getRed(), outlineColor.getGreen(), outlineColor.getBlue(), FILL_ALPHA);
+		}
+
+		LayoutPlan plan = plugin.getLayoutPlan();
+		int slot = widgetItem.getIndex();
+		if (!enabled || slot >= plan.size() || !plan.isMisplaced(slot))
+		{
+			return;
+		}
+
+		Rectangle bounds = widgetItem.getCanvasBounds();
+		if (slot == plan.getNextFrom() || slot == plan.getNextTo())
+		{
+			graphics.setColor(fillColor);
+			graphics.fill(bounds);
+		}
+		graphics.setColor(outlineColor);
+		graphics.draw(bounds);
+	}
+}
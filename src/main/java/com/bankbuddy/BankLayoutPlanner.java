@@ -0,0 +1,518 @@
+package com.bankbuddy;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Plans a tidy bank layout: within each tab, items are grouped by category
+ * and ordered from most to least valuable. Items of one category with equal
+ * stack values, such as placeholders and untradeables, form a run that may
+ * go in any order among its slots, and the plan uses that freedom to move as
+ * little as it can. Items already in a slot of their run stay where they are.
+ *
+ * The plan is counted in swaps, the bank's default rearrange mode. Each cycle
+ * of the permutation from current to planned slots takes one swap less than
+ * its length, so the misplaced items are paired up into cycles by a greedy
+ * heuristic, see {@link Moves}, which does not always find the most.
+ *
+ * Tabs are planned independently and a tab is only planned again when its
+ * contents change. When the only change is the tab's suggested swap, its
+ * cycles are kept rather than paired up again, so following the plan lowers
+ * the swap count by one per swap, or two when the displaced item also lands
+ * in a slot of its run, and never reshuffles it.
+ *
+ * Not thread safe; used on the client thread.
+ */
+public class BankLayoutPlanner
+{
+	// Category in the top bits, then the inverted stack value and the item id,
+	// so one ascending sort groups by category and puts valuable stacks first.
+	// The id only makes the sort deterministic, items tying above it form a run
+	// that is reordered to leave items in place. Stacks worth more than the
+	// value bits can hold tie with each other.
+	private static final int ID_BITS = 17;
+	private static final int VALUE_BITS = 40;
+	private static final int CATEGORY_SHIFT = ID_BITS + VALUE_BITS;
+	private static final long VALUE_MASK = (1L << VALUE_BITS) - 1;
+	private static final long ID_MASK = (1L << ID_BITS) - 1;
+
+	private Tab[] tabs = new Tab[0];
+	private LayoutPlan plan = LayoutPlan.EMPTY;
+
+	/**
+	 * Brings the plan up to date with the bank
+	 *
+	 * @param tabSizes item count of each numbered tab, in bank order; the
+	 *                 remaining slots form the main tab
+	 * @param categorizer maps item ids to category ordinals
+	 * @return the plan, the same instance as before if nothing changed
+	 */
+	public LayoutPlan update(BankSnapshot bank, int[] tabSizes, IntUnaryOperator categorizer)
+	{
+		int tabCount = tabSizes.length + 1;
+		boolean changed = plan.size() != bank.size();
+		if (tabs.length != tabCount)
+		{
+			tabs = new Tab[tabCount];
+			for (int tab = 0; tab < tabCount; tab++)
+			{
+				tabs[tab] = new Tab();
+			}
+			changed = true;
+		}
+
+		int start = 0;
+		for (int tab = 0; tab < tabCount; tab++)
+		{
+			int end = tab < tabSizes.length ? Math.min(bank.size(), start + Math.max(0, tabSizes[tab])) : bank.size();
+			changed |= tabs[tab].update(bank, start, end, categorizer);
+			start = end;
+		}
+
+		if (!changed)
+		{
+			return plan;
+		}
+
+		int[] targets = new int[bank.size()];
+		int misplaced = 0;
+		int moves = 0;
+		int nextFrom = -1;
+		int nextTo = -1;
+		for (Tab tab : tabs)
+		{
+			System.arraycopy(tab.targets, 0, targets, tab.start, tab.targets.length);
+			misplaced += tab.misplaced;
+			moves += tab.moves;
+			if (nextTo == -1 && tab.nextTo != -1)
+			{
+				nextFrom = tab.nextFrom;
+				nextTo = tab.nextTo;
+			}
+		}
+
+		plan = new LayoutPlan(targets, misplaced, moves, nextFrom, nextTo);
+		return plan;
+	}
+
+	public LayoutPlan getPlan()
+	{
+		return plan;
+	}
+
+	public void clear()
+	{
+		tabs = new Tab[0];
+		plan = LayoutPlan.EMPTY;
+	}
+
+	/**
+	 * One tab's inputs as of its last planning, and the result
+	 */
+	private static final class Tab
+	{
+		private static final int[] EMPTY = new int[0];
+
+		private int start = -1;
+		private int[] ids = EMPTY;
+		private int[] quantities = EMPTY;
+		private int[] prices = EMPTY;
+		private int[] categories = EMPTY;
+
+		// Absolute target slot per slot of the tab, -1 for empty slots
+		private int[] targets = EMPTY;
+		private int misplaced;
+		private int moves;
+		private int nextFrom = -1;
+		private int nextTo = -1;
+
+		/**
+		 * @return true if the tab changed and was planned again
+		 */
+		private boolean update(BankSnapshot bank, int start, int end, IntUnaryOperator categorizer)
+		{
+			int length = end - start;
+			boolean resized = start != this.start || length != ids.length;
+			boolean changed = resized;
+			// Whether the suggested swap was made, in which case nothing else may have changed
+			int from = nextFrom - start;
+			int to = nextTo - start;
+			boolean swapped = !resized && nextFrom != -1 && holds(bank, from, to, categorizer)
+				&& holds(bank, to, from, categorizer);
+			if (resized)
+			{
+				this.start = start;
+				ids = new int[length];
+				quantities = new int[length];
+				prices = new int[length];
+				categories = new int[length];
+				targets = new int[length];
+			}
+
+			for (int offset = 0; offset < length; offset++)
+			{
+				int slot = start + offset;
+				int itemId = bank.getItemId(slot);
+				int category = itemId == -1 ? 0 : categorizer.applyAsInt(itemId);
+				if (resized || itemId != ids[offset] || bank.getQuantity(slot) != quantities[offset]
+					|| bank.getPrice(slot) != prices[offset] || category != categories[offset])
+				{
+					changed = true;
+					swapped &= offset == from || offset == to;
+					ids[offset] = itemId;
+					quantities[offset] = bank.getQuantity(slot);
+					prices[offset] = bank.getPrice(slot);
+					categories[offset] = category;
+				}
+			}
+
+			if (swapped)
+			{
+				followSwap(from, to);
+			}
+			else if (changed)
+			{
+				plan();
+			}
+			return changed;
+		}
+
+		/**
+		 * @return whether a slot of the bank holds what the tab last saw at another offset
+		 */
+		private boolean holds(BankSnapshot bank, int offset, int previous, IntUnaryOperator categorizer)
+		{
+			int itemId = bank.getItemId(start + offset);
+			return itemId == ids[previous] && bank.getQuantity(start + offset) == quantities[previous]
+				&& bank.getPrice(start + offset) == prices[previous]
+				&& (itemId == -1 ? 0 : categorizer.applyAsInt(itemId)) == categories[previous];
+		}
+
+		/**
+		 * Keeps the plan after its suggested swap: the item moved to its target
+		 * is in place, and the one it displaced takes over its target, which
+		 * shortens their cycle by one. If the displaced item landed in a slot of
+		 * its own run it stays there too, and the item that was planned for that
+		 * slot takes over its target instead, shortening the cycle once more.
+		 */
+		private void followSwap(int from, int to)
+		{
+			int displacedTarget = targets[to];
+			targets[to] = start + to;
+			misplaced--;
+			moves--;
+			if (displacedTarget == start + from)
+			{
+				targets[from] = displacedTarget;
+				misplaced--;
+				findNext();
+				return;
+			}
+
+			int planned = 0;
+			while (targets[planned] != start + from)
+			{
+				planned++;
+			}
+			if (key(planned) >>> ID_BITS == key(from) >>> ID_BITS)
+			{
+				targets[from] = start + from;
+				targets[planned] = displacedTarget;
+				misplaced -= displacedTarget == start + planned ? 2 : 1;
+				moves--;
+			}
+			else
+			{
+				targets[from] = displacedTarget;
+			}
+			findNext();
+		}
+
+		private void plan()
+		{
+			int length = ids.length;
+			int[] positions = new int[length];
+			long[] keys = new long[length];
+			int count = 0;
+			for (int offset = 0; offset < length; offset++)
+			{
+				targets[offset] = -1;
+				if (ids[offset] != -1)
+				{
+					positions[count] = offset;
+					keys[count] = key(offset);
+					count++;
+				}
+			}
+
+			// The sort puts order[k] in the k-th occupied slot. Items tying on
+			// category and value form a run, and may take any of its slots.
+			int[] order = ItemSorter.sort(keys, positions, count, false);
+			int[] slotRuns = new int[length];
+			int[] itemRuns = new int[length];
+			int runs = 0;
+			for (int k = 0; k < count; k++)
+			{
+				if (k > 0 && key(order[k]) >>> ID_BITS != key(order[k - 1]) >>> ID_BITS)
+				{
+					runs++;
+				}
+				slotRuns[positions[k]] = runs;
+				itemRuns[order[k]] = runs;
+			}
+
+			// Items already in a slot of their run stay there
+			long[] moving = new long[count];
+			misplaced = 0;
+			for (int k = 0; k < count; k++)
+			{
+				int offset = positions[k];
+				if (slotRuns[offset] == itemRuns[offset])
+				{
+					targets[offset] = offset;
+				}
+				else
+				{
+					moving[misplaced++] = Moves.pack(slotRuns[offset], itemRuns[offset], offset);
+				}
+			}
+
+			// Each cycle of misplaced items takes one swap less than its length
+			moves = misplaced - new Moves(moving, misplaced, runs + 1, itemRuns).assign(targets);
+
+			for (int offset = 0; offset < length; offset++)
+			{
+				if (targets[offset] != -1)
+				{
+					targets[offset] += start;
+				}
+			}
+			findNext();
+		}
+
+		/**
+		 * Suggests filling the first misplaced slot with the item planned for it
+		 */
+		private void findNext()
+		{
+			nextFrom = -1;
+			nextTo = -1;
+			int first = -1;
+			for (int offset = 0; offset < targets.length; offset++)
+			{
+				if (targets[offset] != -1 && targets[offset] != start + offset)
+				{
+					first = offset;
+					break;
+				}
+			}
+			if (first == -1)
+			{
+				return;
+			}
+
+			for (int offset = first; offset < targets.length; offset++)
+			{
+				if (targets[offset] == start + first)
+				{
+					nextFrom = start + offset;
+					nextTo = start + first;
+					return;
+				}
+			}
+		}
+
+		private long key(int offset)
+		{
+			long value = Math.min((long) prices[offset] * quantities[offset], VALUE_MASK);
+			return (long) categories[offset] << CATEGORY_SHIFT
+				| (VALUE_MASK - value) << ID_BITS
+				| (ids[offset] & ID_MASK);
+		}
+	}
+
+	/**
+	 * Chooses where each misplaced item of a tab goes. An item may take any
+	 * slot of its run that is held by an item of another run, and every cycle
+	 * in the result saves a swap, so items of two runs holding each other's
+	 * slots are first paired off into two-item cycles. The rest are chained,
+	 * preferring at each step an item that wants the slot run the cycle began
+	 * in, which closes it, or else one that such an item can follow. Finding
+	 * the most cycles is a hard problem in general and this greedy choice does
+	 * not guarantee it.
+	 */
+	private static final class Moves
+	{
+		// Misplaced items are packed as slot run, item run and tab offset
+		private static final int FIELD_BITS = 21;
+		private static final long FIELD_MASK = (1L << FIELD_BITS) - 1;
+
+		// Sorted, so the items of one slot run, and of one slot and item run
+		// pair, are contiguous. Such a pair's items form a group.
+		private final long[] items;
+		private final int count;
+		private final int[] itemRuns;
+		// Per group start, the group's end and its next unassigned item
+		private final int[] groupEnds;
+		private final int[] cursors;
+		// Per slot run, the first group that may have unassigned items
+		private final int[] firstGroups;
+
+		private Moves(long[] items, int count, int runs, int[] itemRuns)
+		{
+			this.items = items;
+			this.count = count;
+			this.itemRuns = itemRuns;
+			Arrays.sort(items, 0, count);
+			groupEnds = new int[count];
+			cursors = new int[count];
+			firstGroups = new int[runs];
+			Arrays.fill(firstGroups, count);
+			for (int end = count; end > 0; )
+			{
+				int group = end - 1;
+				while (group > 0 && items[group - 1] >>> FIELD_BITS == items[end - 1] >>> FIELD_BITS)
+				{
+					group--;
+				}
+				groupEnds[group] = end;
+				cursors[group] = group;
+				firstGroups[slotRun(items[group])] = group;
+				end = group;
+			}
+		}
+
+		private static long pack(int slotRun, int itemRun, int offset)
+		{
+			return (long) slotRun << (2 * FIELD_BITS) | (long) itemRun << FIELD_BITS | offset;
+		}
+
+		private static int slotRun(long item)
+		{
+			return (int) (item >>> (2 * FIELD_BITS));
+		}
+
+		private static int itemRun(long item)
+		{
+			return (int) (item >>> FIELD_BITS & FIELD_MASK);
+		}
+
+		private static int offset(long item)
+		{
+			return (int) (item & FIELD_MASK);
+		}
+
+		/**
+		 * Fills in the target of every misplaced item
+		 *
+		 * @return the number of cycles
+		 */
+		private int assign(int[] targets)
+		{
+			int cycles = 0;
+			for (int group = 0; group < count; group = groupEnds[group])
+			{
+				int slotRun = slotRun(items[group]);
+				int itemRun = itemRun(items[group]);
+				int reverse = itemRun > slotRun ? findGroup(itemRun, slotRun) : -1;
+				while (reverse != -1 && cursors[group] < groupEnds[group] && cursors[reverse] < groupEnds[reverse])
+				{
+					int first = offset(items[cursors[group]++]);
+					int second = offset(items[cursors[reverse]++]);
+					targets[first] = second;
+					targets[second] = first;
+					cycles++;
+				}
+			}
+
+			for (int group = 0; group < count; group = groupEnds[group])
+			{
+				while (cursors[group] < groupEnds[group])
+				{
+					int startRun = slotRun(items[group]);
+					int first = offset(items[cursors[group]++]);
+					int current = first;
+					while (itemRuns[current] != startRun)
+					{
+						int next = take(itemRuns[current], startRun);
+						targets[current] = next;
+						current = next;
+					}
+					targets[current] = first;
+					cycles++;
+				}
+			}
+			return cycles;
+		}
+
+		/**
+		 * Takes an unassigned item held in a slot of the given run, preferring
+		 * one that wants a slot of the preferred run, then one that wants a
+		 * run holding such an item. Slots and the items wanting them balance
+		 * within each run, so there always is one.
+		 */
+		private int take(int slotRun, int preferredRun)
+		{
+			int group = findGroup(slotRun, preferredRun);
+			if (group != -1 && cursors[group] < groupEnds[group])
+			{
+				return offset(items[cursors[group]++]);
+			}
+
+			// Otherwise one that wants a run from which the cycle can close next
+			int fallback = -1;
+			for (group = firstGroups[slotRun]; group < count && slotRun(items[group]) == slotRun;
+				group = groupEnds[group])
+			{
+				if (cursors[group] == groupEnds[group])
+				{
+					if (fallback == -1)
+					{
+						firstGroups[slotRun] = groupEnds[group];
+					}
+					continue;
+				}
+
+				int closing = findGroup(itemRun(items[group]), preferredRun);
+				if (closing != -1 && cursors[closing] < groupEnds[closing])
+				{
+					return offset(items[cursors[group]++]);
+				}
+				if (fallback == -1)
+				{
+					fallback = group;
+				}
+			}
+
+			if (fallback == -1)
+			{
+				throw new IllegalStateException("No slot left in run " + slotRun);
+			}
+			return offset(items[cursors[fallback]++]);
+		}
+
+		/**
+		 * @return the start of the group of items in slots of one run that want
+		 *         the other, or -1 if there are none
+		 */
+		private int findGroup(int slotRun, int itemRun)
+		{
+			long prefix = pack(slotRun, itemRun, 0);
+			int low = 0;
+			int high = count;
+			while (low < high)
+			{
+				int middle = (low + high) >>> 1;
+				if (items[middle] < prefix)
+				{
+					low = middle + 1;
+				}
+				else
+				{
+					high = middle;
+				}
+			}
+			return low < count && items[low] >>> FIELD_BITS == prefix >>> FIELD_BITS ? low : -1;
+		}
+	}
+}
@@ -1,87 +1,66 @@
 package com.bankbuddy;
 
 import java.util.Arrays;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import net.runelite.api.Item;
-import net.runelite.api.ItemID;
-import net.runelite.client.game.ItemManager;
+import java.util.function.IntUnaryOperator;
 
 /**
- * Utility class for organizing and categorizing bank items
+ * Utility class for organizing and categorizing bank items. Categories come
+ * from the bundled category rules, optionally extended by the user's own.
  */
 public class BankOrganizer
 {
-	private final ItemManager itemManager;
-	
-	// Item categories for organization
-	private static final Map<String, List<Integer>> ITEM_CATEGORIES = new HashMap<>();
-	
+	private static final String MISCELLANEOUS = "Miscellaneous";
+	private static final int UNCATEGORIZED = -1;
+
+	private static final CategoryRules DEFAULT_RULES = CategoryRules.loadDefaults();
+	private static final CategoryMatcher DEFAULT_MATCHER = new CategoryMatcher(DEFAULT_RULES);
+
+	// Category names by ordinal, with Miscellaneous last
+	private static final String[] CATEGORY_NAMES;
+	private static final int MISCELLANEOUS_ORDINAL;
+
 	static
 	{
-		// Combat gear
-		ITEM_CATEGORIES.put("Combat", Arrays.asList(
-			ItemID.ABYSSAL_WHIP, ItemID.DRAGON_SCIMITAR, ItemID.RUNE_SCIMITAR,
-			ItemID.RUNE_PLATEBODY, ItemID.DRAGON_PLATEBODY, ItemID.BARROWS_GLOVES,
-			ItemID.DRAGON_BOOTS, ItemID.RUNE_BOOTS, ItemID.COMBAT_BRACELET
-		));
-		
-		// Skilling items
-		ITEM_CATEGORIES.put("Skilling", Arrays.asList(
-			ItemID.DRAGON_PICKAXE, ItemID.RUNE_PICKAXE, ItemID.DRAGON_AXE,
-			ItemID.RUNE_AXE, ItemID.DRAGON_HARPOON, ItemID.LOBSTER_POT,
-			ItemID.SMALL_FISHING_NET, ItemID.FLY_FISHING_ROD
-		));
-		
-		// Potions and consumables
-		ITEM_CATEGORIES.put("Potions", Arrays.asList(
-			ItemID.SUPER_COMBAT_POTION4, ItemID.SUPER_ATTACK4, ItemID.SUPER_STRENGTH4,
-			ItemID.SUPER_DEFENCE4, ItemID.RANGING_POTION4, ItemID.MAGIC_POTION4,
-			ItemID.PRAYER_POTION4, ItemID.SUPER_RESTORE4, ItemID.ANTIFIRE_POTION4
-		));
-		
-		// Food items
-		ITEM_CATEGORIES.put("Food", Arrays.asList(
-			ItemID.SHARK, ItemID.LOBSTER, ItemID.SWORDFISH, ItemID.TUNA,
-			ItemID.SALMON, ItemID.TROUT, ItemID.MONKFISH, ItemID.KARAMBWAN
-		));
-		
-		// Runes and magic
-		ITEM_CATEGORIES.put("Magic", Arrays.asList(
-			ItemID.NATURE_RUNE, ItemID.LAW_RUNE, ItemID.DEATH_RUNE,
-			ItemID.BLOOD_RUNE, ItemID.SOUL_RUNE, ItemID.COSMIC_RUNE,
-			ItemID.CHAOS_RUNE, ItemID.FIRE_RUNE, ItemID.WATER_RUNE,
-			ItemID.AIR_RUNE, ItemID.EARTH_RUNE, ItemID.MIND_RUNE
-		));
-		
-		// Ores and bars
-		ITEM_CATEGORIES.put("Smithing", Arrays.asList(
-			ItemID.IRON_ORE, ItemID.COAL, ItemID.GOLD_ORE, ItemID.MITHRIL_ORE,
-			ItemID.ADAMANTITE_ORE, ItemID.RUNITE_ORE, ItemID.IRON_BAR,
-			ItemID.STEEL_BAR, ItemID.GOLD_BAR, ItemID.MITHRIL_BAR,
-			ItemID.ADAMANTITE_BAR, ItemID.RUNITE_BAR
-		));
-		
-		// Logs and woodcutting
-		ITEM_CATEGORIES.put("Woodcutting", Arrays.asList(
-			ItemID.LOGS, ItemID.OAK_LOGS, ItemID.WILLOW_LOGS, ItemID.MAPLE_LOGS,
-			ItemID.YEW_LOGS, ItemID.MAGIC_LOGS, ItemID.REDWOOD_LOGS
-		));
-		
-		// Seeds and farming
-		ITEM_CATEGORIES.put("Farming", Arrays.asList(
-			ItemID.POTATO_SEED, ItemID.ONION_SEED, ItemID.CABBAGE_SEED,
-			ItemID.TOMATO_SEED, ItemID.SWEETCORN_SEED, ItemID.STRAWBERRY_SEED,
-			ItemID.WATERMELON_SEED, ItemID.RANARR_SEED, ItemID.SNAPDRAGON_SEED,
-			ItemID.TORSTOL_SEED, ItemID.TREE_SEED, ItemID.WILLOW_SEED
-		));
+		MISCELLANEOUS_ORDINAL = DEFAULT_RULES.getCategories().size();
+		CATEGORY_NAMES = DEFAULT_RULES.getCategories().toArray(new String[MISCELLANEOUS_ORDINAL + 1]);
+		CATEGORY_NAMES[MISCELLANEOUS_ORDINAL] = MISCELLANEOUS;
 	}
-	
-	public BankOrganizer(ItemManager itemManager)
+
+	// Names and memoized categorization results, keyed by item id
+	private final ItemMetadataCache itemCache;
+	// Maps variants, noted items and placeholders to the item categorized in their place
+	private final IntUnaryOperator baseIds;
+	private CategoryMatcher matcher = DEFAULT_MATCHER;
+
+	public BankOrganizer(ItemDataProvider itemData)
 	{
-		this.itemManager = itemManager;
+		this(new ItemMetadataCache(itemData), IntUnaryOperator.identity());
+	}
+
+	/**
+	 * @param itemCache cache shared with the rest of the plugin, which this
+	 *                  organizer stores its category ordinals in
+	 * @param baseIds maps items without an id rule of their own to the item
+	 *                they are categorized as
+	 */
+	public BankOrganizer(ItemMetadataCache itemCache, IntUnaryOperator baseIds)
+	{
+		this.itemCache = itemCache;
+		this.baseIds = baseIds;
+	}
+
+	/**
+	 * Layers the user's category rules over the bundled ones, replacing any
+	 * previously set, and forgets every cached categorization
+	 *
+	 * @param rules rules in the category_rules.txt format, or an empty string for none
+	 */
+	public void setCustomRules(String rules)
+	{
+		matcher = rules == null || rules.trim().isEmpty() ?
+			DEFAULT_MATCHER :
+			new CategoryMatcher(DEFAULT_RULES.withOverrides(rules));
+		itemCache.clearCategories();
 	}
 	
 	/**
@@ -89,122 +68,233 @@ public class BankOrganizer
 	 */
 	public String categorizeItem(int itemId)
 	{
-		for (Map.Entry<String, List<Integer>> category : ITEM_CATEGORIES.entrySet())
-		{
-			if (category.getValue().contains(itemId))
-			{
-				return category.getKey();
-			}
-		}
-		
-		// Default categorization based on item name/properties
-		String itemName = itemManager.getItemComposition(itemId).getName().toLowerCase();
-		
-		if (itemName.contains("potion"))
-		{
-			return "Potions";
-		}
-		else if (itemName.contains("rune"))
-		{
-			return "Magic";
-		}
-		else if (itemName.contains("ore") || itemName.contains("bar"))
+		return CATEGORY_NAMES[categorizeItemOrdinal(itemId)];
+	}
+
+	/**
+	 * Categorizes an item, returning the category ordinal. Results are computed
+	 * once per item id: id rules first, then the base item's category for
+	 * variants, noted items and placeholders, then the item name.
+	 */
+	public int categorizeItemOrdinal(int itemId)
+	{
+		int ordinal = itemCache.getCategory(itemId);
+		if (ordinal != UNCATEGORIZED)
 		{
-			return "Smithing";
+			return ordinal;
 		}
-		else if (itemName.contains("log"))
+
+		ordinal = matcher.matchId(itemId);
+		int baseId = baseIds.applyAsInt(itemId);
+		if (ordinal == CategoryMatcher.NO_MATCH && baseId != itemId && baseId >= 0)
 		{
-			return "Woodcutting";
+			ordinal = matcher.matchId(baseId);
+			if (ordinal == CategoryMatcher.NO_MATCH)
+			{
+				ordinal = matcher.matchName(itemCache.getMetadata(baseId).getLowerName());
+			}
 		}
-		else if (itemName.contains("seed"))
+		if (ordinal == CategoryMatcher.NO_MATCH)
 		{
-			return "Farming";
+			ordinal = matcher.matchName(itemCache.getMetadata(itemId).getLowerName());
 		}
-		else if (itemName.contains("fish") || itemName.contains("food"))
+		if (ordinal == CategoryMatcher.NO_MATCH)
 		{
-			return "Food";
+			ordinal = MISCELLANEOUS_ORDINAL;
 		}
-		
-		return "Miscellaneous";
+
+		itemCache.setCategory(itemId, ordinal);
+		return ordinal;
 	}
 	
 	/**
-	 * Sorts items by value (highest to lowest)
+	 * Sorts occupied slots by unit value
+	 *
+	 * @return slot indices into the snapshot, in sorted order
 	 */
-	public Item[] sortByValue(Item[] items, boolean ascending)
+	public int[] sortByValue(BankSnapshot bank, boolean ascending)
 	{
-		return Arrays.stream(items)
-			.filter(item -> item.getId() != -1)
-			.sorted(ascending ? 
-				Comparator.comparingLong(item -> itemManager.getItemPrice(item.getId())) :
-				Comparator.comparingLong((Item item) -> itemManager.getItemPrice(item.getId())).reversed())
-			.toArray(Item[]::new);
+		return sortByValue(bank, ascending, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Gets the first few occupied slots by unit value without sorting the rest
+	 *
+	 * @return at most limit slot indices into the snapshot, in sorted order
+	 */
+	public int[] sortByValue(BankSnapshot bank, boolean ascending, int limit)
+	{
+		int[] slots = occupiedSlots(bank);
+		int count = slots.length;
+		long[] prices = new long[count];
+		for (int i = 0; i < count; i++)
+		{
+			prices[i] = bank.getPrice(slots[i]);
+		}
+		return ItemSorter.top(prices, slots, count, limit, !ascending);
 	}
 	
 	/**
-	 * Sorts items alphabetically by name
+	 * Sorts occupied slots alphabetically by item name
+	 *
+	 * @return slot indices into the snapshot, in sorted order
 	 */
-	public Item[] sortAlphabetically(Item[] items)
+	public int[] sortAlphabetically(BankSnapshot bank)
+	{
+		int[] slots = occupiedSlots(bank);
+		int count = slots.length;
+
+		// Resolve every name up front in one batch instead of inside the comparator
+		int[] ids = new int[count];
+		for (int i = 0; i < count; i++)
+		{
+			ids[i] = bank.getItemId(slots[i]);
+		}
+		String[] names = new String[count];
+		itemCache.getNames(ids, count, names);
+
+		return ItemSorter.sort(ItemSorter.nameRanks(names, count), slots, count, false);
+	}
+
+	private static int[] occupiedSlots(BankSnapshot bank)
 	{
-		return Arrays.stream(items)
-			.filter(item -> item.getId() != -1)
-			.sorted(Comparator.comparing(item -> 
-				itemManager.getItemComposition(item.getId()).getName()))
-			.toArray(Item[]::new);
+		int[] slots = new int[bank.size()];
+		int count = 0;
+		for (int slot = 0; slot < bank.size(); slot++)
+		{
+			if (bank.getItemId(slot) != -1)
+			{
+				slots[count++] = slot;
+			}
+		}
+		return count == slots.length ? slots : Arrays.copyOf(slots, count);
 	}
 	
 	/**
-	 * Finds items worth more than a specified threshold
+	 * Finds the most valuable stacks worth at least a threshold in one pass,
+	 * keeping only the top few in a bounded heap
+	 *
+	 * @param limit how many ranked stacks to keep
 	 */
-	public Map<Integer, Long> findValuableItems(Item[] items, long threshold)
+	public ValuableItems findValuableItems(BankSnapshot bank, long threshold, int limit)
 	{
-		Map<Integer, Long> valuableItems = new HashMap<>();
-		
-		for (Item item : items)
+		ItemSorter.TopK top = new ItemSorter.TopK(limit, true);
+		int matchCount = 0;
+
+		for (int slot = 0; slot < bank.size(); slot++)
 		{
-			if (item.getId() == -1)
+			if (bank.getItemId(slot) == -1 || bank.getQuantity(slot) <= 0)
 			{
 				continue;
 			}
-			
-			long itemValue = itemManager.getItemPrice(item.getId()) * item.getQuantity();
+
+			long itemValue = bank.getStackValue(slot);
 			if (itemValue >= threshold)
 			{
-				valuableItems.put(item.getId(), itemValue);
+				matchCount++;
+				top.offer(itemValue, slot);
 			}
 		}
-		
-		return valuableItems;
+
+		int[] slots = top.toSortedSlots();
+		int[] itemIds = new int[slots.length];
+		long[] values = new long[slots.length];
+		for (int rank = 0; rank < slots.length; rank++)
+		{
+			itemIds[rank] = bank.getItemId(slots[rank]);
+			values[rank] = bank.getStackValue(slots[rank]);
+		}
+		return new ValuableItems(itemIds, values, matchCount, threshold);
 	}
 	
 	/**
 	 * Gets the total value of items in a specific category
 	 */
-	public long getCategoryValue(Item[] items, String category)
+	public long getCategoryValue(BankSnapshot bank, String category)
 	{
+		int categoryOrdinal = getCategoryOrdinal(category);
+		if (categoryOrdinal == UNCATEGORIZED)
+		{
+			return 0;
+		}
+
 		long totalValue = 0;
 		
-		for (Item item : items)
+		for (int slot = 0; slot < bank.size(); slot++)
 		{
-			if (item.getId() == -1)
+			int itemId = bank.getItemId(slot);
+			if (itemId == -1)
 			{
 				continue;
 			}
 			
-			if (categorizeItem(item.getId()).equals(category))
+			if (categorizeItemOrdinal(itemId) == categoryOrdinal)
 			{
-				totalValue += itemManager.getItemPrice(item.getId()) * item.getQuantity();
+				totalValue += bank.getStackValue(slot);
 			}
 		}
 		
 		return totalValue;
 	}
 	
+	/**
+	 * Computes every category's total value, stack count and top N stacks in one pass
+	 */
+	public CategoryBreakdown aggregateCategories(BankSnapshot bank, int topN)
+	{
+		CategoryBreakdown breakdown = new CategoryBreakdown(CATEGORY_NAMES.length, topN);
+
+		for (int slot = 0; slot < bank.size(); slot++)
+		{
+			int itemId = bank.getItemId(slot);
+			if (itemId == -1 || bank.getQuantity(slot) <= 0)
+			{
+				// Placeholders are not items of any category
+				continue;
+			}
+
+			breakdown.add(categorizeItemOrdinal(itemId), itemId, bank.getStackValue(slot));
+		}
+
+		return breakdown;
+	}
+	
 	/**
 	 * Gets all available categories
 	 */
 	public static String[] getCategories()
 	{
-		return ITEM_CATEGORIES.keySet().toArray(new String[0]);
+		return Arrays.copyOf(CATEGORY_NAMES, MISCELLANEOUS_ORDINAL);
+	}
+
+	/**
+	 * Gets the name of a category ordinal, including Miscellaneous
+	 */
+	public static String getCategoryName(int ordinal)
+	{
+		return CATEGORY_NAMES[ordinal];
+	}
+
+	/**
+	 * Gets the number of category ordinals, including Miscellaneous
+	 */
+	public static int getCategoryCount()
+	{
+		return CATEGORY_NAMES.length;
+	}
+
+	/**
+	 * Gets the ordinal of a category name, or -1 if there is no such category
+	 */
+	public static int getCategoryOrdinal(String category)
+	{
+		for (int i = 0; i < CATEGORY_NAMES.length; i++)
+		{
+			if (CATEGORY_NAMES[i].equals(category))
+			{
+				return i;
+			}
+		}
+		return UNCATEGORIZED;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,401 @@
+package com.bankbuddy;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Trigram index over the names of the items in the bank. Each trigram maps to
+ * a bitset of the slots whose name contains it, so a query intersects a few
+ * bitsets and only checks the names that survive, instead of scanning and
+ * resolving every name on each keystroke.
+ *
+ * Names are lower-cased with a leading space, which makes the trigrams at the
+ * start of a word distinct and word prefix queries as cheap as substring ones.
+ * Slots are diffed against the previous bank on update and only changed slots
+ * are re-indexed.
+ *
+ * Not thread safe; used on the client thread.
+ */
+public class BankSearchIndex
+{
+	private static final int GRAM_LENGTH = 3;
+	// Bits per character in a trigram key, characters beyond share keys
+	private static final int CHAR_BITS = 10;
+	private static final int CHAR_MASK = (1 << CHAR_BITS) - 1;
+	// Queries at least this long are retried allowing typos when nothing matches
+	private static final int MIN_APPROXIMATE_LENGTH = 4;
+	// Interned names kept beyond those of the current bank before starting over
+	private static final int MIN_INTERNED = 256;
+	private static final int[] EMPTY = new int[0];
+
+	private int[] slotIds = EMPTY;
+	// Indexed text of each slot, null for empty slots
+	private String[] slotNames = new String[0];
+	// One indexed text per distinct name, shared by every slot holding it.
+	// Emptied once it holds twice as many names as the bank has slots, which
+	// only costs slots indexed afterwards their sharing with older ones.
+	private final Map<String, String> interned = new HashMap<>();
+
+	// Trigram key to its position in postings
+	private final ItemQuantityIndex grams = new ItemQuantityIndex();
+	// Slot bitset per trigram, each words long
+	private long[][] postings = new long[0][];
+	private int postingCount = 0;
+	private int words = 0;
+
+	// Scratch space reused between updates and queries
+	private int[] changedSlots = EMPTY;
+	private int[] changedIds = EMPTY;
+	private String[] changedNames = new String[0];
+	private int[] gramCounts = EMPTY;
+	private int[] distanceRow = EMPTY;
+
+	/**
+	 * Brings the index up to date with the bank, resolving names only for the
+	 * slots whose item changed
+	 *
+	 * @return true if any slot changed
+	 */
+	public boolean update(BankSnapshot bank, ItemDataProvider itemData)
+	{
+		int size = bank.size();
+		if (size > words * Long.SIZE)
+		{
+			// Grow the bitsets, which means indexing every slot again
+			clear();
+			words = (size + Long.SIZE - 1) / Long.SIZE;
+			gramCounts = new int[words * Long.SIZE];
+		}
+
+		for (int slot = size; slot < slotIds.length; slot++)
+		{
+			removeSlot(slot);
+		}
+		int previousSize = slotIds.length;
+		if (size != previousSize)
+		{
+			slotIds = Arrays.copyOf(slotIds, size);
+			slotNames = Arrays.copyOf(slotNames, size);
+			for (int slot = previousSize; slot < size; slot++)
+			{
+				slotIds[slot] = -1;
+			}
+		}
+
+		int changed = 0;
+		for (int slot = 0; slot < size; slot++)
+		{
+			int itemId = bank.getItemId(slot);
+			if (itemId == slotIds[slot])
+			{
+				continue;
+			}
+
+			removeSlot(slot);
+			slotIds[slot] = itemId;
+			if (itemId != -1)
+			{
+				if (changed == changedSlots.length)
+				{
+					int capacity = Math.max(16, changed * 2);
+					changedSlots = Arrays.copyOf(changedSlots, capacity);
+					changedIds = Arrays.copyOf(changedIds, capacity);
+					changedNames = Arrays.copyOf(changedNames, capacity);
+				}
+				changedSlots[changed] = slot;
+				changedIds[changed] = itemId;
+				changed++;
+			}
+		}
+
+		if (changed > 0)
+		{
+			if (interned.size() > Math.max(MIN_INTERNED, 2 * size))
+			{
+				interned.clear();
+			}
+			itemData.getNames(changedIds, changed, changedNames);
+			for (int i = 0; i < changed; i++)
+			{
+				addSlot(changedSlots[i], changedNames[i]);
+				changedNames[i] = null;
+			}
+		}
+		return changed > 0 || size != previousSize;
+	}
+
+	public void clear()
+	{
+		slotIds = EMPTY;
+		slotNames = new String[0];
+		interned.clear();
+		grams.clear();
+		postings = new long[0][];
+		postingCount = 0;
+		words = 0;
+	}
+
+	/**
+	 * Finds the slots whose name contains the query, or failing that whose
+	 * name contains it with a typo or two
+	 */
+	public SearchMatches search(String query)
+	{
+		String needle = normalize(query);
+		if (needle.isEmpty())
+		{
+			return SearchMatches.EMPTY;
+		}
+
+		SearchMatches matches = findSubstring(query);
+		if (matches.isEmpty() && needle.length() >= MIN_APPROXIMATE_LENGTH)
+		{
+			matches = findApproximate(query, needle.length() < 8 ? 1 : 2);
+		}
+		return matches;
+	}
+
+	/**
+	 * Finds the slots whose name contains the query anywhere
+	 */
+	public SearchMatches findSubstring(String query)
+	{
+		String needle = normalize(query);
+		long[] matched = new long[words];
+		int count = needle.isEmpty() ? 0 : findExact(needle, matched);
+		return new SearchMatches(query, matched, count, false);
+	}
+
+	/**
+	 * Finds the slots with a word in their name starting with the query
+	 */
+	public SearchMatches findPrefix(String query)
+	{
+		String needle = normalize(query);
+		long[] matched = new long[words];
+		int count = needle.isEmpty() ? 0 : findExact(' ' + needle, matched);
+		return new SearchMatches(query, matched, count, false);
+	}
+
+	/**
+	 * Finds the slots whose name contains the query with at most the given
+	 * number of inserted, deleted or substituted characters
+	 */
+	public SearchMatches findApproximate(String query, int maxTypos)
+	{
+		String needle = normalize(query);
+		long[] matched = new long[words];
+		int count = 0;
+		if (!needle.isEmpty())
+		{
+			count = maxTypos <= 0 ? findExact(needle, matched) : findWithin(needle, maxTypos, matched);
+		}
+		return new SearchMatches(query, matched, count, maxTypos > 0);
+	}
+
+	private int findExact(String needle, long[] matched)
+	{
+		int gramCount = needle.length() - GRAM_LENGTH + 1;
+		if (gramCount <= 0)
+		{
+			// Too short for a trigram, the names are already at hand to scan
+			return scan(needle, matched);
+		}
+
+		for (int gram = 0; gram < gramCount; gram++)
+		{
+			int posting = (int) grams.get(gramKey(needle, gram), -1);
+			if (posting == -1)
+			{
+				Arrays.fill(matched, 0);
+				return 0;
+			}
+
+			long[] slots = postings[posting];
+			for (int word = 0; word < words; word++)
+			{
+				matched[word] = gram == 0 ? slots[word] : matched[word] & slots[word];
+			}
+		}
+
+		// Every trigram being present does not mean they are in order
+		int count = 0;
+		for (int word = 0; word < words; word++)
+		{
+			for (long bits = matched[word]; bits != 0; bits &= bits - 1)
+			{
+				int slot = word << 6 | Long.numberOfTrailingZeros(bits);
+				if (slotNames[slot].contains(needle))
+				{
+					count++;
+				}
+				else
+				{
+					matched[word] &= ~(1L << slot);
+				}
+			}
+		}
+		return count;
+	}
+
+	private int scan(String needle, long[] matched)
+	{
+		int count = 0;
+		for (int slot = 0; slot < slotNames.length; slot++)
+		{
+			if (slotNames[slot] != null && slotNames[slot].contains(needle))
+			{
+				matched[slot >>> 6] |= 1L << slot;
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Matches names containing the needle within the given edit distance. A
+	 * match must share all but maxTypos * 3 of the needle's trigrams, which
+	 * rules out most names before the edit distance is computed.
+	 */
+	private int findWithin(String needle, int maxTypos, long[] matched)
+	{
+		int gramCount = needle.length() - GRAM_LENGTH + 1;
+		int required = gramCount - maxTypos * GRAM_LENGTH;
+		if (required > 0)
+		{
+			Arrays.fill(gramCounts, 0, slotNames.length, 0);
+			for (int gram = 0; gram < gramCount; gram++)
+			{
+				int posting = (int) grams.get(gramKey(needle, gram), -1);
+				if (posting == -1)
+				{
+					continue;
+				}
+
+				long[] slots = postings[posting];
+				for (int word = 0; word < words; word++)
+				{
+					for (long bits = slots[word]; bits != 0; bits &= bits - 1)
+					{
+						gramCounts[word << 6 | Long.numberOfTrailingZeros(bits)]++;
+					}
+				}
+			}
+		}
+
+		if (distanceRow.length <= needle.length())
+		{
+			distanceRow = new int[needle.length() + 1];
+		}
+
+		int count = 0;
+		for (int slot = 0; slot < slotNames.length; slot++)
+		{
+			if (slotNames[slot] != null && (required <= 0 || gramCounts[slot] >= required)
+				&& withinDistance(needle, slotNames[slot], maxTypos))
+			{
+				matched[slot >>> 6] |= 1L << slot;
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Whether some part of the text is within maxTypos edits of the needle
+	 */
+	private boolean withinDistance(String needle, String text, int maxTypos)
+	{
+		// Column of the edit distance table for the text read so far. The
+		// match may start anywhere, so the top row stays at 0.
+		int[] row = distanceRow;
+		int length = needle.length();
+		for (int i = 0; i <= length; i++)
+		{
+			row[i] = i;
+		}
+
+		for (int j = 0; j < text.length(); j++)
+		{
+			char c = text.charAt(j);
+			int diagonal = 0;
+			for (int i = 1; i <= length; i++)
+			{
+				int above = row[i];
+				int cost = needle.charAt(i - 1) == c ? 0 : 1;
+				row[i] = Math.min(Math.min(above, row[i - 1]) + 1, diagonal + cost);
+				diagonal = above;
+			}
+			if (row[length] <= maxTypos)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void addSlot(int slot, String name)
+	{
+		if (name == null)
+		{
+			return;
+		}
+
+		String text = interned.get(name);
+		if (text == null)
+		{
+			text = ' ' + name.toLowerCase(Locale.ROOT);
+			interned.put(name, text);
+		}
+		slotNames[slot] = text;
+
+		for (int gram = 0; gram + GRAM_LENGTH <= text.length(); gram++)
+		{
+			int key = gramKey(text, gram);
+			int posting = (int) grams.get(key, -1);
+			if (posting == -1)
+			{
+				if (postingCount == postings.length)
+				{
+					postings = Arrays.copyOf(postings, Math.max(64, postingCount * 2));
+				}
+				posting = postingCount++;
+				postings[posting] = new long[words];
+				grams.put(key, posting);
+			}
+			postings[posting][slot >>> 6] |= 1L << slot;
+		}
+	}
+
+	private void removeSlot(int slot)
+	{
+		String text = slotNames[slot];
+		slotIds[slot] = -1;
+		if (text == null)
+		{
+			return;
+		}
+
+		slotNames[slot] = null;
+		for (int gram = 0; gram + GRAM_LENGTH <= text.length(); gram++)
+		{
+			// Emptied postings are kept, the same trigram is likely to come back
+			int posting = (int) grams.get(gramKey(text, gram), -1);
+			postings[posting][slot >>> 6] &= ~(1L << slot);
+		}
+	}
+
+	private static String normalize(String query)
+	{
+		return query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+	}
+
+	private static int gramKey(String text, int start)
+	{
+		return (text.charAt(start) & CHAR_MASK) << (2 * CHAR_BITS)
+			| (text.charAt(start + 1) & CHAR_MASK) << CHAR_BITS
+			| text.charAt(start + 2) & CHAR_MASK;
+	}
+}
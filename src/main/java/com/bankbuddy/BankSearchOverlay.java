@@ -0,0 +1,69 @@
+package com.bankbuddy;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import javax.inject.Inject;
+import net.runelite.api.widgets.WidgetItem;
+import net.runelite.client.ui.overlay.WidgetItemOverlay;
+
+/**
+ * Highlights the bank items matching the Highlight Items query. Matches that
+ * needed typo tolerance are outlined only.
+ */
+public class BankSearchOverlay extends WidgetItemOverlay
+{
+	private static final int FILL_ALPHA = 50;
+
+	private final BankBuddyPlugin plugin;
+	private final BankBuddyConfig config;
+
+	// Config values cached until the next config change
+	private volatile boolean configDirty = true;
+	private boolean enabled;
+	private Color outlineColor;
+	private Color fillColor;
+
+	@Inject
+	private BankSearchOverlay(BankBuddyPlugin plugin, BankBuddyConfig config)
+	{
+		this.plugin = plugin;
+		this.config = config;
+		showOnBank();
+	}
+
+	/**
+	 * Marks the cached config values as stale
+	 */
+	public void invalidate()
+	{
+		configDirty = true;
+	}
+
+	@Override
+	public void renderItemOverlay(Graphics2D graphics, int itemId, WidgetItem widgetItem)
+	{
+		if (configDirty)
+		{
+			configDirty = false;
+			enabled = config.enableSearchEnhancements();
+			outlineColor = config.overlayColor();
+			fillColor = new Color(outlineColor.getRed(), outlineColor.getGreen(), outlineColor.getBlue(), FILL_ALPHA);
+		}
+
+		SearchMatches matches = plugin.getSearchMatches();
+		if (!enabled || !matches.contains(widgetItem.getIndex()))
+		{
+			return;
+		}
+
+		Rectangle bounds = widgetItem.getCanvasBounds();
+		if (!matches.isApproximate())
+		{
+			graphics.setColor(fillColor);
+			graphics.fill(bounds);
+		}
+		graphics.setColor(outlineColor);
+		graphics.draw(bounds);
+	}
+}
@@ -0,0 +1,166 @@
+package com.bankbuddy;
+
+/**
+ * Immutable view of the bank at one point in time: per-slot ids, quantities and
+ * prices plus the aggregates computed from them. A new snapshot is built once
+ * per bank change and shared by the plugin, organizer and overlay.
+ *
+ * Snapshots published by the {@link ValuationPipeline} also carry the category
+ * and valuable item indexes; stored snapshots do not.
+ */
+public final class BankSnapshot
+{
+	public static final BankSnapshot EMPTY = new BankSnapshot(new int[0], new int[0], new int[0], 0, 0, 0, 0);
+
+	private final int[] ids;
+	private final int[] quantities;
+	private final int[] prices;
+	private final long totalValue;
+	private final long totalItems;
+	private final int uniqueItems;
+	private final int usedSlots;
+	private final long timestamp;
+	private final CategoryBreakdown categories;
+	private final ValuableItems valuableItems;
+
+	/**
+	 * Takes ownership of the given arrays, which must not be modified afterwards
+	 */
+	BankSnapshot(int[] ids, int[] quantities, int[] prices, long totalValue, long totalItems,
+		int uniqueItems, long timestamp)
+	{
+		this(ids, quantities, prices, totalValue, totalItems, uniqueItems, timestamp, null, null);
+	}
+
+	BankSnapshot(int[] ids, int[] quantities, int[] prices, long totalValue, long totalItems,
+		int uniqueItems, long timestamp, CategoryBreakdown categories, ValuableItems valuableItems)
+	{
+		this.ids = ids;
+		this.quantities = quantities;
+		this.prices = prices;
+		this.totalValue = totalValue;
+		this.totalItems = totalItems;
+		this.uniqueItems = uniqueItems;
+		this.timestamp = timestamp;
+		this.categories = categories;
+		this.valuableItems = valuableItems;
+
+		int used = 0;
+		for (int itemId : ids)
+		{
+			if (itemId != -1)
+			{
+				used++;
+			}
+		}
+		usedSlots = used;
+	}
+
+	/**
+	 * Copies this snapshot with new indexes, sharing the slot arrays
+	 */
+	BankSnapshot withIndexes(CategoryBreakdown categories, ValuableItems valuableItems)
+	{
+		return new BankSnapshot(ids, quantities, prices, totalValue, totalItems, uniqueItems, timestamp,
+			categories, valuableItems);
+	}
+
+	/**
+	 * Gets the number of slots, including empty ones
+	 */
+	public int size()
+	{
+		return ids.length;
+	}
+
+	public boolean isEmpty()
+	{
+		return ids.length == 0;
+	}
+
+	/**
+	 * Gets the item id in a slot, or -1 if the slot is empty
+	 */
+	public int getItemId(int slot)
+	{
+		return ids[slot];
+	}
+
+	public int getQuantity(int slot)
+	{
+		return quantities[slot];
+	}
+
+	/**
+	 * Gets the unit price of the item in a slot
+	 */
+	public int getPrice(int slot)
+	{
+		return prices[slot];
+	}
+
+	/**
+	 * Gets the value of the whole stack in a slot
+	 */
+	public long getStackValue(int slot)
+	{
+		return (long) prices[slot] * quantities[slot];
+	}
+
+	public long getTotalValue()
+	{
+		return totalValue;
+	}
+
+	public long getTotalItems()
+	{
+		return totalItems;
+	}
+
+	/**
+	 * Gets the number of distinct items held, counting noted and unnoted
+	 * stacks of an item once and not counting placeholders
+	 */
+	public int getUniqueItems()
+	{
+		return uniqueItems;
+	}
+
+	/**
+	 * Gets the number of slots taken up by items or placeholders, which is
+	 * what counts towards the bank's capacity
+	 */
+	public int getUsedSlots()
+	{
+		return usedSlots;
+	}
+
+	/**
+	 * Gets the time the bank contents were captured, in epoch milliseconds
+	 */
+	public long getTimestamp()
+	{
+		return timestamp;
+	}
+
+	/**
+	 * Gets every category's value, stack count and most valuable stack
+	 *
+	 * @return the breakdown, or null if this snapshot was not indexed
+	 */
+	public CategoryBreakdown getCategories()
+	{
+		return categories;
+	}
+
+	/**
+	 * Gets every stack worth at least the valuable item threshold in effect when
+	 * this snapshot was valued
+	 *
+	 * @return the ranked stacks, or null if this snapshot was not indexed
+	 */
+	public ValuableItems getValuableItems()
+	{
+		return valuableItems;
+	}
+}
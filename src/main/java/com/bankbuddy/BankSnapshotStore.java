@@ -0,0 +1,301 @@
+package com.bankbuddy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
+
+/**
+ * Persists the last known bank snapshot per account so totals are available
+ * before the bank is opened again, along with the account's value history.
+ *
+ * File layout, all big-endian:
+ * <pre>
+ * int     magic ("BBSN")
+ * int     format version
+ * long    capture timestamp
+ * long    total value
+ * long    total items
+ * int     unique items
+ * int     slot count
+ * int[3n] id, quantity and price for each slot
+ * long    CRC32 of everything above
+ * </pre>
+ * The history is written alongside in its own format, see
+ * {@link BankValueHistory#encode()}. Both files are written to a temporary file
+ * and moved into place, so a crash never leaves a half-written one behind.
+ * Anything that fails validation is ignored.
+ */
+@Slf4j
+@Singleton
+public class BankSnapshotStore
+{
+	static final File STORE_DIR = new File(RuneLite.RUNELITE_DIR, "bank-buddy");
+
+	private static final int MAGIC = 0x4242534E;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 8 + 4 + 4;
+	private static final int MAX_SLOTS = 4096;
+	private static final long WRITE_DELAY_SECONDS = 5;
+
+	private final ScheduledExecutorService executor;
+	private final AtomicReference<PendingWrite> pendingWrite = new AtomicReference<>();
+
+	@Inject
+	BankSnapshotStore(ScheduledExecutorService executor)
+	{
+		this.executor = executor;
+	}
+
+	/**
+	 * Loads the stored snapshot for an account on the executor
+	 *
+	 * @param callback receives the snapshot, or {@link BankSnapshot#EMPTY} if none could be read
+	 */
+	public void loadAsync(long accountHash, Consumer<BankSnapshot> callback)
+	{
+		executor.execute(() -> callback.accept(load(accountHash)));
+	}
+
+	/**
+	 * Queues a snapshot and the account's value history to be written. Saves
+	 * requested within a few seconds of each other are coalesced into one write
+	 * of the latest of each.
+	 *
+	 * @param history the value history, or null to leave the stored one as is,
+	 *                such as while it is still being loaded
+	 */
+	public void save(long accountHash, BankSnapshot snapshot, BankValueHistory history)
+	{
+		if (pendingWrite.getAndSet(new PendingWrite(accountHash, snapshot, history)) == null)
+		{
+			executor.schedule(this::flush, WRITE_DELAY_SECONDS, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * Writes any queued snapshot and history now, on the executor
+	 */
+	public void flushAsync()
+	{
+		executor.execute(this::flush);
+	}
+
+	/**
+	 * Loads the stored value history for an account on the executor
+	 *
+	 * @param callback receives the history, or an empty one if none could be read
+	 */
+	public void loadHistoryAsync(long accountHash, int categoryCount, Consumer<BankValueHistory> callback)
+	{
+		executor.execute(() -> callback.accept(loadHistory(accountHash, categoryCount)));
+	}
+
+	BankValueHistory loadHistory(long accountHash, int categoryCount)
+	{
+		File file = historyFile(accountHash);
+		if (file.exists())
+		{
+			try
+			{
+				return BankValueHistory.decode(Files.readAllBytes(file.toPath()), categoryCount);
+			}
+			catch (IOException ex)
+			{
+				log.warn("Ignoring unreadable bank value history {}", file, ex);
+			}
+		}
+		return new BankValueHistory(categoryCount);
+	}
+
+	BankSnapshot load(long accountHash)
+	{
+		File file = snapshotFile(accountHash);
+		if (!file.exists())
+		{
+			return BankSnapshot.EMPTY;
+		}
+
+		try
+		{
+			return decode(Files.readAllBytes(file.toPath()));
+		}
+		catch (IOException ex)
+		{
+			log.warn("Unable to read bank snapshot {}", file, ex);
+			return BankSnapshot.EMPTY;
+		}
+	}
+
+	private void flush()
+	{
+		PendingWrite write = pendingWrite.getAndSet(null);
+		if (write == null)
+		{
+			return;
+		}
+
+		File file = snapshotFile(write.accountHash);
+		try
+		{
+			writeAtomically(file.toPath(), encode(write.snapshot));
+		}
+		catch (IOException ex)
+		{
+			log.warn("Unable to write bank snapshot {}", file, ex);
+		}
+
+		if (write.history == null)
+		{
+			return;
+		}
+
+		File historyFile = historyFile(write.accountHash);
+		try
+		{
+			writeAtomically(historyFile.toPath(), write.history.encode());
+		}
+		catch (IOException ex)
+		{
+			log.warn("Unable to write bank value history {}", historyFile, ex);
+		}
+	}
+
+	static void writeAtomically(Path target, byte[] data) throws IOException
+	{
+		Files.createDirectories(target.getParent());
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+		Files.write(temp, data);
+		try
+		{
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (AtomicMoveNotSupportedException ex)
+		{
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	static byte[] encode(BankSnapshot snapshot) throws IOException
+	{
+		int slots = snapshot.size();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_SIZE + slots * 12 + 8);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeLong(snapshot.getTimestamp());
+		out.writeLong(snapshot.getTotalValue());
+		out.writeLong(snapshot.getTotalItems());
+		out.writeInt(snapshot.getUniqueItems());
+		out.writeInt(slots);
+		for (int slot = 0; slot < slots; slot++)
+		{
+			out.writeInt(snapshot.getItemId(slot));
+			out.writeInt(snapshot.getQuantity(slot));
+			out.writeInt(snapshot.getPrice(slot));
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(bytes.toByteArray());
+		out.writeLong(crc.getValue());
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	static BankSnapshot decode(byte[] data)
+	{
+		if (data.length < HEADER_SIZE + 8)
+		{
+			return BankSnapshot.EMPTY;
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, data.length - 8);
+		if (crc.getValue() != ByteBuffer.wrap(data, data.length - 8, 8).getLong())
+		{
+			log.warn("Ignoring bank snapshot with a bad checksum");
+			return BankSnapshot.EMPTY;
+		}
+
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data)))
+		{
+			if (in.readInt() != MAGIC)
+			{
+				return BankSnapshot.EMPTY;
+			}
+
+			int version = in.readInt();
+			if (version != VERSION)
+			{
+				log.debug("Ignoring bank snapshot with unknown version {}", version);
+				return BankSnapshot.EMPTY;
+			}
+
+			long timestamp = in.readLong();
+			long totalValue = in.readLong();
+			long totalItems = in.readLong();
+			int uniqueItems = in.readInt();
+			int slots = in.readInt();
+			if (slots < 0 || slots > MAX_SLOTS || data.length != HEADER_SIZE + slots * 12 + 8)
+			{
+				return BankSnapshot.EMPTY;
+			}
+
+			int[] ids = new int[slots];
+			int[] quantities = new int[slots];
+			int[] prices = new int[slots];
+			for (int slot = 0; slot < slots; slot++)
+			{
+				ids[slot] = in.readInt();
+				quantities[slot] = in.readInt();
+				prices[slot] = in.readInt();
+			}
+
+			return new BankSnapshot(ids, quantities, prices, totalValue, totalItems, uniqueItems, timestamp);
+		}
+		catch (IOException ex)
+		{
+			return BankSnapshot.EMPTY;
+		}
+	}
+
+	private static File snapshotFile(long accountHash)
+	{
+		return new File(STORE_DIR, accountHash + ".bank");
+	}
+
+	private static File historyFile(long accountHash)
+	{
+		return new File(STORE_DIR, accountHash + ".history");
+	}
+
+	private static final class PendingWrite
+	{
+		private final long accountHash;
+		private final BankSnapshot snapshot;
+		private final BankValueHistory history;
+
+		private PendingWrite(long accountHash, BankSnapshot snapshot, BankValueHistory history)
+		{
+			this.accountHash = accountHash;
+			this.snapshot = snapshot;
+			this.history = history;
+		}
+	}
+}
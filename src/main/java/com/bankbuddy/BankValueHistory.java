@@ -0,0 +1,414 @@
+package com.bankbuddy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Bounded history of bank value over time. Samples are kept in three ring
+ * buffers of decreasing resolution (per minute for a day, per hour for a month
+ * and per day for ten years), each storing the last, lowest and highest total
+ * seen in a bucket plus the last per-category values, column by column.
+ *
+ * All methods are synchronized so the history can be recorded on the client
+ * thread and written out on the executor.
+ */
+public class BankValueHistory
+{
+	private static final int FORMAT_VERSION = 2;
+	private static final int HEADER_SIZE = 4 + 4 + 4;
+
+	private final Tier[] tiers;
+	private final int categoryCount;
+
+	public BankValueHistory(int categoryCount)
+	{
+		this.categoryCount = categoryCount;
+		this.tiers = new Tier[]{
+			new Tier(TimeUnit.MINUTES.toMillis(1), 24 * 60, categoryCount),
+			new Tier(TimeUnit.HOURS.toMillis(1), 24 * 30, categoryCount),
+			new Tier(TimeUnit.DAYS.toMillis(1), 365 * 10, categoryCount),
+		};
+	}
+
+	/**
+	 * Records a sample into every tier. A sample in the same bucket as the
+	 * previous one replaces its last value and widens its min/max.
+	 */
+	public synchronized void record(long timestamp, long totalValue, CategoryBreakdown categories)
+	{
+		for (Tier tier : tiers)
+		{
+			tier.record(timestamp, totalValue, categories);
+		}
+	}
+
+	public synchronized boolean isEmpty()
+	{
+		return tiers[0].size == 0;
+	}
+
+	/**
+	 * Gets the last recorded total at or before the given time, using the finest
+	 * tier that reaches back that far
+	 *
+	 * @param maxAge how long before the time the sample may have been recorded
+	 * @return the total, or -1 if nothing was recorded in that window
+	 */
+	public synchronized long valueAt(long timestamp, long maxAge)
+	{
+		Tier tier = tierCovering(timestamp);
+		int index = tier.lastAtOrBefore(timestamp, maxAge);
+		return index < 0 ? -1 : tier.totals[tier.physical(index)];
+	}
+
+	/**
+	 * Gets the last recorded value of a category at or before the given time
+	 *
+	 * @param maxAge how long before the time the sample may have been recorded
+	 * @return the value, or -1 if nothing was recorded in that window
+	 */
+	public synchronized long categoryValueAt(int category, long timestamp, long maxAge)
+	{
+		Tier tier = tierCovering(timestamp);
+		int index = tier.lastAtOrBefore(timestamp, maxAge);
+		return index < 0 ? -1 : tier.categories[category][tier.physical(index)];
+	}
+
+	/**
+	 * Gets the lowest total recorded in [from, to]
+	 *
+	 * @return the minimum, or -1 if there are no samples in the window
+	 */
+	public synchronized long minValue(long from, long to)
+	{
+		return extreme(from, to, false);
+	}
+
+	/**
+	 * Gets the highest total recorded in [from, to]
+	 *
+	 * @return the maximum, or -1 if there are no samples in the window
+	 */
+	public synchronized long maxValue(long from, long to)
+	{
+		return extreme(from, to, true);
+	}
+
+	private long extreme(long from, long to, boolean max)
+	{
+		Tier tier = tierCovering(from);
+		int start = tier.firstAtOrAfter(from);
+		if (start < 0)
+		{
+			return -1;
+		}
+
+		long result = -1;
+		for (int i = start; i < tier.size; i++)
+		{
+			if (tier.bucketStart(i) > to)
+			{
+				break;
+			}
+
+			int slot = tier.physical(i);
+			long value = max ? tier.maxTotals[slot] : tier.minTotals[slot];
+			if (result == -1 || (max ? value > result : value < result))
+			{
+				result = value;
+			}
+		}
+		return result;
+	}
+
+	private Tier tierCovering(long timestamp)
+	{
+		for (Tier tier : tiers)
+		{
+			if (tier.size > 0 && tier.bucketStart(0) <= timestamp)
+			{
+				return tier;
+			}
+		}
+		return tiers[tiers.length - 1];
+	}
+
+	/**
+	 * Serializes the history. Each column is written as zigzag varint deltas
+	 * from the previous sample, which keeps slowly moving totals to a few bytes,
+	 * and the whole is followed by a CRC32 of it.
+	 */
+	public synchronized byte[] encode() throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(FORMAT_VERSION);
+		out.writeInt(categoryCount);
+		out.writeInt(tiers.length);
+		for (Tier tier : tiers)
+		{
+			out.writeInt(tier.size);
+			writeColumn(out, tier, tier.timestamps);
+			writeColumn(out, tier, tier.totals);
+			writeColumn(out, tier, tier.minTotals);
+			writeColumn(out, tier, tier.maxTotals);
+			for (long[] column : tier.categories)
+			{
+				writeColumn(out, tier, column);
+			}
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(bytes.toByteArray());
+		out.writeLong(crc.getValue());
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Restores a history written by {@link #encode()}. Category columns are
+	 * matched by ordinal; extra ones are dropped and missing ones read as zero.
+	 *
+	 * @throws IOException if the data is truncated, corrupt or not a history
+	 */
+	public static BankValueHistory decode(byte[] data, int categoryCount) throws IOException
+	{
+		if (data.length < HEADER_SIZE + 8)
+		{
+			throw new IOException("Truncated history");
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, data.length - 8);
+		if (crc.getValue() != ByteBuffer.wrap(data, data.length - 8, 8).getLong())
+		{
+			throw new IOException("Bad history checksum");
+		}
+
+		BankValueHistory history = new BankValueHistory(categoryCount);
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 0, data.length - 8));
+		if (in.readInt() != FORMAT_VERSION)
+		{
+			throw new IOException("Unknown history format");
+		}
+
+		int storedCategories = in.readInt();
+		int storedTiers = in.readInt();
+		if (storedCategories < 0 || storedTiers != history.tiers.length)
+		{
+			throw new IOException("Unexpected history layout");
+		}
+
+		long[] discard = new long[0];
+		for (Tier tier : history.tiers)
+		{
+			int size = in.readInt();
+			if (size < 0 || size > tier.timestamps.length)
+			{
+				throw new IOException("Invalid tier size " + size);
+			}
+
+			if (discard.length < size)
+			{
+				discard = new long[size];
+			}
+
+			tier.size = size;
+			tier.head = 0;
+			readColumn(in, size, tier.timestamps);
+			readColumn(in, size, tier.totals);
+			readColumn(in, size, tier.minTotals);
+			readColumn(in, size, tier.maxTotals);
+			for (int category = 0; category < storedCategories; category++)
+			{
+				readColumn(in, size, category < categoryCount ? tier.categories[category] : discard);
+			}
+		}
+
+		if (in.available() != 0)
+		{
+			throw new IOException("Trailing data after history");
+		}
+		return history;
+	}
+
+	private static void writeColumn(DataOutputStream out, Tier tier, long[] column) throws IOException
+	{
+		long previous = 0;
+		for (int i = 0; i < tier.size; i++)
+		{
+			long value = column[tier.physical(i)];
+			long delta = value - previous;
+			writeVarLong(out, (delta << 1) ^ (delta >> 63));
+			previous = value;
+		}
+	}
+
+	private static void readColumn(DataInputStream in, int size, long[] column) throws IOException
+	{
+		long previous = 0;
+		for (int i = 0; i < size; i++)
+		{
+			long zigzag = readVarLong(in);
+			previous += (zigzag >>> 1) ^ -(zigzag & 1);
+			column[i] = previous;
+		}
+	}
+
+	private static void writeVarLong(DataOutputStream out, long value) throws IOException
+	{
+		while ((value & ~0x7FL) != 0)
+		{
+			out.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	private static long readVarLong(DataInputStream in) throws IOException
+	{
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7)
+		{
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+			{
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	/**
+	 * Fixed-capacity ring buffer of samples at one resolution
+	 */
+	private static final class Tier
+	{
+		private final long resolution;
+		private final long[] timestamps;
+		private final long[] totals;
+		private final long[] minTotals;
+		private final long[] maxTotals;
+		private final long[][] categories;
+		// Physical index of the oldest sample
+		private int head;
+		private int size;
+
+		private Tier(long resolution, int capacity, int categoryCount)
+		{
+			this.resolution = resolution;
+			this.timestamps = new long[capacity];
+			this.totals = new long[capacity];
+			this.minTotals = new long[capacity];
+			this.maxTotals = new long[capacity];
+			this.categories = new long[categoryCount][capacity];
+		}
+
+		private int physical(int index)
+		{
+			int slot = head + index;
+			return slot >= timestamps.length ? slot - timestamps.length : slot;
+		}
+
+		private void record(long timestamp, long total, CategoryBreakdown breakdown)
+		{
+			int slot;
+			if (size > 0 && timestamp / resolution == timestamps[physical(size - 1)] / resolution)
+			{
+				slot = physical(size - 1);
+				minTotals[slot] = Math.min(minTotals[slot], total);
+				maxTotals[slot] = Math.max(maxTotals[slot], total);
+			}
+			else
+			{
+				if (size > 0 && timestamp < timestamps[physical(size - 1)])
+				{
+					// Clock went backwards, keep the series ordered
+					return;
+				}
+
+				if (size == timestamps.length)
+				{
+					head = physical(1);
+					size--;
+				}
+				slot = physical(size++);
+				minTotals[slot] = total;
+				maxTotals[slot] = total;
+			}
+
+			timestamps[slot] = timestamp;
+			totals[slot] = total;
+			int count = Math.min(categories.length, breakdown.getCategoryCount());
+			for (int category = 0; category < count; category++)
+			{
+				categories[category][slot] = breakdown.getValue(category);
+			}
+		}
+
+		/**
+		 * Gets the start of the bucket a sample belongs to. Lookups match on the
+		 * bucket, so a downsampled tier answers with the bucket containing a time.
+		 */
+		private long bucketStart(int index)
+		{
+			long timestamp = timestamps[physical(index)];
+			return timestamp - Math.floorMod(timestamp, resolution);
+		}
+
+		/**
+		 * @return the logical index of the last bucket starting at or before the time,
+		 * or -1 if there is none or its sample was recorded more than maxAge earlier
+		 */
+		private int lastAtOrBefore(long timestamp, long maxAge)
+		{
+			int index = lastAtOrBefore(timestamp);
+			return index >= 0 && timestamps[physical(index)] >= timestamp - maxAge ? index : -1;
+		}
+
+		/**
+		 * @return the logical index of the last bucket starting at or before the time, or -1
+		 */
+		private int lastAtOrBefore(long timestamp)
+		{
+			int low = 0;
+			int high = size - 1;
+			int found = -1;
+			while (low <= high)
+			{
+				int mid = (low + high) >>> 1;
+				if (bucketStart(mid) <= timestamp)
+				{
+					found = mid;
+					low = mid + 1;
+				}
+				else
+				{
+					high = mid - 1;
+				}
+			}
+			return found;
+		}
+
+		/**
+		 * @return the logical index of the first bucket starting after the time, or
+		 * containing it, or -1 if there is none
+		 */
+		private int firstAtOrAfter(long timestamp)
+		{
+			int index = lastAtOrBefore(timestamp);
+			if (index < 0 || bucketStart(index) + resolution <= timestamp)
+			{
+				index++;
+			}
+			return index < size ? index : -1;
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package com.bankbuddy;
+
+/**
+ * Per-category totals, stack counts and most valuable stacks, gathered in a
+ * single pass over the bank by {@link BankOrganizer#aggregateCategories} or
+ * copied from the indexes kept by {@link ContainerValuation}
+ */
+public class CategoryBreakdown
+{
+	private final long[] values;
+	private final int[] itemCounts;
+	private final int topN;
+	// Top stacks per category, ordered from most to least valuable
+	private final int[][] topItemIds;
+	private final long[][] topItemValues;
+	private final int[] topCounts;
+	private long totalValue;
+
+	CategoryBreakdown(int categoryCount, int topN)
+	{
+		this.values = new long[categoryCount];
+		this.itemCounts = new int[categoryCount];
+		this.topN = topN;
+		this.topItemIds = new int[categoryCount][topN];
+		this.topItemValues = new long[categoryCount][topN];
+		this.topCounts = new int[categoryCount];
+	}
+
+	void add(int category, int itemId, long value)
+	{
+		values[category] += value;
+		itemCounts[category]++;
+		totalValue += value;
+
+		if (topN == 0)
+		{
+			return;
+		}
+
+		int[] ids = topItemIds[category];
+		long[] stackValues = topItemValues[category];
+		int count = topCounts[category];
+		if (count == topN && value <= stackValues[count - 1])
+		{
+			return;
+		}
+
+		// Insertion into a short sorted array beats a heap for small N
+		int position = count == topN ? count - 1 : count;
+		while (position > 0 && stackValues[position - 1] < value)
+		{
+			ids[position] = ids[position - 1];
+			stackValues[position] = stackValues[position - 1];
+			position--;
+		}
+		ids[position] = itemId;
+		stackValues[position] = value;
+
+		if (count < topN)
+		{
+			topCounts[category] = count + 1;
+		}
+	}
+
+	/**
+	 * Sets a category's value and stack count directly, for totals that are
+	 * already known
+	 */
+	void set(int category, long value, int itemCount)
+	{
+		totalValue += value - values[category];
+		values[category] = value;
+		itemCounts[category] = itemCount;
+	}
+
+	/**
+	 * Appends the next top stack of a category, which must be no more valuable
+	 * than the ones before it
+	 */
+	void addTop(int category, int itemId, long value)
+	{
+		int count = topCounts[category];
+		if (count < topN)
+		{
+			topItemIds[category][count] = itemId;
+			topItemValues[category][count] = value;
+			topCounts[category] = count + 1;
+		}
+	}
+
+	public int getCategoryCount()
+	{
+		return values.length;
+	}
+
+	public long getTotalValue()
+	{
+		return totalValue;
+	}
+
+	public long getValue(int category)
+	{
+		return values[category];
+	}
+
+	/**
+	 * Gets the number of item stacks in a category
+	 */
+	public int getItemCount(int category)
+	{
+		return itemCounts[category];
+	}
+
+	/**
+	 * Gets how many top stacks were recorded for a category, at most the requested N
+	 */
+	public int getTopCount(int category)
+	{
+		return topCounts[category];
+	}
+
+	public int getTopItemId(int category, int rank)
+	{
+		return topItemIds[category][rank];
+	}
+
+	public long getTopItemValue(int category, int rank)
+	{
+		return topItemValues[category][rank];
+	}
+}
@@ -0,0 +1,210 @@
+package com.bankbuddy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link CategoryRules} compiled for lookups. Id rules become a table indexed
+ * by item id, and every keyword and exclusion of every category goes into one
+ * Aho-Corasick automaton, so a name is classified in a single pass over its
+ * characters whatever the number of rules, without allocating.
+ */
+public class CategoryMatcher
+{
+	public static final int NO_MATCH = -1;
+
+	// Keywords are plain ASCII; any other character only ever resets the match
+	static final int ALPHABET_SIZE = 128;
+
+	// Ids above this are not worth a table slot, rules beyond it are clamped
+	private static final int MAX_TABLE_ID = 1 << 17;
+
+	// Category ordinal + 1 per item id, 0 where no id rule applies
+	private final byte[] categoryById;
+
+	// Maps lower-case ASCII characters to automaton symbols, 0 for unused ones
+	private final int[] symbols = new int[ALPHABET_SIZE];
+	private final int symbolCount;
+	// Full transition table, state * symbolCount + symbol
+	private final int[] transitions;
+	// Rules ending at each state, including those reached through failure links
+	private final CategoryRules.NameRule[][] outputs;
+
+	public CategoryMatcher(CategoryRules rules)
+	{
+		categoryById = buildIdTable(rules.getIdRules());
+
+		List<CategoryRules.NameRule> nameRules = rules.getNameRules();
+		int symbol = 1;
+		for (CategoryRules.NameRule rule : nameRules)
+		{
+			for (int i = 0; i < rule.keyword.length(); i++)
+			{
+				char c = rule.keyword.charAt(i);
+				if (symbols[c] == 0)
+				{
+					symbols[c] = symbol++;
+				}
+			}
+		}
+		symbolCount = symbol;
+
+		// Build the keyword trie, -1 marking missing edges
+		List<int[]> trie = new ArrayList<>();
+		List<List<CategoryRules.NameRule>> matches = new ArrayList<>();
+		trie.add(newState());
+		matches.add(new ArrayList<>());
+		for (CategoryRules.NameRule rule : nameRules)
+		{
+			int state = 0;
+			for (int i = 0; i < rule.keyword.length(); i++)
+			{
+				int edge = symbols[rule.keyword.charAt(i)];
+				if (trie.get(state)[edge] == -1)
+				{
+					trie.get(state)[edge] = trie.size();
+					trie.add(newState());
+					matches.add(new ArrayList<>());
+				}
+				state = trie.get(state)[edge];
+			}
+			matches.get(state).add(rule);
+		}
+
+		// Breadth first, resolve failure links into a complete transition table
+		int states = trie.size();
+		transitions = new int[states * symbolCount];
+		outputs = new CategoryRules.NameRule[states][];
+		int[] failure = new int[states];
+		int[] queue = new int[states];
+		int head = 0;
+		int tail = 0;
+		for (int edge = 0; edge < symbolCount; edge++)
+		{
+			int next = trie.get(0)[edge];
+			if (next > 0)
+			{
+				failure[next] = 0;
+				queue[tail++] = next;
+			}
+			transitions[edge] = Math.max(next, 0);
+		}
+		outputs[0] = matches.get(0).toArray(new CategoryRules.NameRule[0]);
+
+		while (head < tail)
+		{
+			int state = queue[head++];
+			List<CategoryRules.NameRule> stateOutputs = matches.get(state);
+			stateOutputs.addAll(Arrays.asList(outputs[failure[state]]));
+			outputs[state] = stateOutputs.toArray(new CategoryRules.NameRule[0]);
+
+			for (int edge = 0; edge < symbolCount; edge++)
+			{
+				int next = trie.get(state)[edge];
+				int fallback = transitions[failure[state] * symbolCount + edge];
+				if (next == -1)
+				{
+					transitions[state * symbolCount + edge] = fallback;
+				}
+				else
+				{
+					transitions[state * symbolCount + edge] = next;
+					failure[next] = fallback;
+					queue[tail++] = next;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the category an id rule assigns to an item
+	 *
+	 * @return the category ordinal, or {@link #NO_MATCH}
+	 */
+	public int matchId(int itemId)
+	{
+		if (itemId < 0 || itemId >= categoryById.length)
+		{
+			return NO_MATCH;
+		}
+		return (categoryById[itemId] & 0xFF) - 1;
+	}
+
+	/**
+	 * Gets the first category with a keyword in the name that none of its
+	 * exclusions veto
+	 *
+	 * @return the category ordinal, or {@link #NO_MATCH}
+	 */
+	public int matchName(String name)
+	{
+		long matched = 0;
+		long excluded = 0;
+		int state = 0;
+		int length = name.length();
+		for (int i = 0; i < length; i++)
+		{
+			char c = name.charAt(i);
+			if (c >= 'A' && c <= 'Z')
+			{
+				c += 'a' - 'A';
+			}
+			int symbol = c < ALPHABET_SIZE ? symbols[c] : 0;
+			state = transitions[state * symbolCount + symbol];
+
+			for (CategoryRules.NameRule rule : outputs[state])
+			{
+				int start = i - rule.keyword.length() + 1;
+				if ((rule.wordStart && start > 0 && Character.isLetterOrDigit(name.charAt(start - 1)))
+					|| (rule.wordEnd && i + 1 < length && Character.isLetterOrDigit(name.charAt(i + 1))))
+				{
+					continue;
+				}
+
+				if (rule.exclusion)
+				{
+					excluded |= 1L << rule.category;
+				}
+				else
+				{
+					matched |= 1L << rule.category;
+				}
+			}
+		}
+
+		long categories = matched & ~excluded;
+		return categories == 0 ? NO_MATCH : Long.numberOfTrailingZeros(categories);
+	}
+
+	private int[] newState()
+	{
+		int[] edges = new int[symbolCount];
+		Arrays.fill(edges, -1);
+		return edges;
+	}
+
+	private static byte[] buildIdTable(List<CategoryRules.IdRule> idRules)
+	{
+		int maxId = -1;
+		for (CategoryRules.IdRule rule : idRules)
+		{
+			maxId = Math.max(maxId, Math.min(rule.last, MAX_TABLE_ID - 1));
+		}
+
+		byte[] table = new byte[maxId + 1];
+		// Rules are in priority order, so earlier ones are never overwritten
+		for (CategoryRules.IdRule rule : idRules)
+		{
+			int last = Math.min(rule.last, maxId);
+			for (int itemId = rule.first; itemId <= last; itemId++)
+			{
+				if (table[itemId] == 0)
+				{
+					table[itemId] = (byte) (rule.category + 1);
+				}
+			}
+		}
+		return table;
+	}
+}
@@ -0,0 +1,304 @@
+package com.bankbuddy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Category definitions: explicit item ids, id ranges, name keywords and
+ * exclusions, parsed from the bundled category_rules.txt and optionally from
+ * the user's own rules. The file format is described in that resource.
+ *
+ * Malformed lines are logged and skipped so one typo does not drop every rule.
+ */
+@Slf4j
+public class CategoryRules
+{
+	private static final String DEFAULT_RULES = "category_rules.txt";
+	private static final String ITEM_ID_PREFIX = "ItemID.";
+
+	// Category ordinals are stored in a bitmask while matching names
+	static final int MAX_CATEGORIES = Long.SIZE;
+
+	private final List<String> categories;
+	// In priority order, the first rule covering an id wins
+	private final List<IdRule> idRules;
+	private final List<NameRule> nameRules;
+
+	private CategoryRules(List<String> categories, List<IdRule> idRules, List<NameRule> nameRules)
+	{
+		this.categories = categories;
+		this.idRules = idRules;
+		this.nameRules = nameRules;
+	}
+
+	/**
+	 * Loads the rules bundled with the plugin
+	 */
+	public static CategoryRules loadDefaults()
+	{
+		try (InputStream in = CategoryRules.class.getResourceAsStream(DEFAULT_RULES))
+		{
+			if (in == null)
+			{
+				throw new IllegalStateException("Missing " + DEFAULT_RULES);
+			}
+			return parse(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+		catch (IOException ex)
+		{
+			throw new IllegalStateException("Unable to read " + DEFAULT_RULES, ex);
+		}
+	}
+
+	/**
+	 * Parses a rule set, defining a category for every section
+	 */
+	public static CategoryRules parse(String text)
+	{
+		CategoryRules rules = new CategoryRules(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+		rules.parseInto(text, true, rules.idRules, rules.nameRules);
+		return rules;
+	}
+
+	/**
+	 * Layers extra rules over these ones. Their ids and ranges are checked
+	 * first and their keywords and exclusions are added to the existing
+	 * categories; sections naming unknown categories are ignored so category
+	 * ordinals stay stable.
+	 */
+	public CategoryRules withOverrides(String text)
+	{
+		List<IdRule> overrideIds = new ArrayList<>();
+		List<NameRule> mergedNames = new ArrayList<>(nameRules);
+		parseInto(text, false, overrideIds, mergedNames);
+
+		overrideIds.addAll(idRules);
+		return new CategoryRules(categories, overrideIds, mergedNames);
+	}
+
+	/**
+	 * Gets the category names in ordinal order
+	 */
+	public List<String> getCategories()
+	{
+		return Collections.unmodifiableList(categories);
+	}
+
+	List<IdRule> getIdRules()
+	{
+		return idRules;
+	}
+
+	List<NameRule> getNameRules()
+	{
+		return nameRules;
+	}
+
+	private void parseInto(String text, boolean defineCategories, List<IdRule> ids, List<NameRule> names)
+	{
+		int category = -1;
+		boolean skipSection = false;
+		String[] lines = text.split("\r?\n");
+		for (int lineNumber = 1; lineNumber <= lines.length; lineNumber++)
+		{
+			String line = lines[lineNumber - 1].trim();
+			if (line.isEmpty() || line.startsWith("#"))
+			{
+				continue;
+			}
+
+			if (line.startsWith("[") && line.endsWith("]"))
+			{
+				String name = line.substring(1, line.length() - 1).trim();
+				category = categories.indexOf(name);
+				skipSection = false;
+				if (category == -1 && defineCategories && categories.size() < MAX_CATEGORIES - 1)
+				{
+					// One ordinal is left for Miscellaneous
+					categories.add(name);
+					category = categories.size() - 1;
+				}
+				else if (category == -1)
+				{
+					log.warn("Ignoring rules for unknown category {} on line {}", name, lineNumber);
+					skipSection = true;
+				}
+				continue;
+			}
+
+			if (skipSection)
+			{
+				continue;
+			}
+
+			int separator = line.indexOf('=');
+			if (separator == -1 || category == -1)
+			{
+				log.warn("Ignoring malformed category rule on line {}: {}", lineNumber, line);
+				continue;
+			}
+
+			String key = line.substring(0, separator).trim();
+			for (String value : line.substring(separator + 1).split(","))
+			{
+				value = value.trim();
+				if (!value.isEmpty())
+				{
+					parseValue(category, key, value, lineNumber, ids, names);
+				}
+			}
+		}
+	}
+
+	private static void parseValue(int category, String key, String value, int lineNumber,
+		List<IdRule> ids, List<NameRule> names)
+	{
+		switch (key)
+		{
+			case "ids":
+			{
+				int itemId = parseItemId(value);
+				if (itemId < 0)
+				{
+					log.warn("Ignoring unknown item id {} on line {}", value, lineNumber);
+					return;
+				}
+				ids.add(new IdRule(category, itemId, itemId));
+				break;
+			}
+			case "ranges":
+			{
+				int dash = value.indexOf('-');
+				if (dash == -1)
+				{
+					log.warn("Ignoring id range without a dash {} on line {}", value, lineNumber);
+					return;
+				}
+
+				String firstValue = value.substring(0, dash).trim();
+				String lastValue = value.substring(dash + 1).trim();
+				int first = parseItemId(firstValue);
+				int last = parseItemId(lastValue);
+				if (first < 0 || last < 0)
+				{
+					log.warn("Ignoring id range with unknown item id {} on line {}",
+						first < 0 ? firstValue : lastValue, lineNumber);
+					return;
+				}
+				if (last < first)
+				{
+					log.warn("Ignoring reversed id range {} on line {}", value, lineNumber);
+					return;
+				}
+				ids.add(new IdRule(category, first, last));
+				break;
+			}
+			case "keywords":
+			case "exclude":
+			{
+				NameRule rule = NameRule.parse(category, value, key.equals("exclude"));
+				if (rule == null)
+				{
+					log.warn("Ignoring invalid keyword {} on line {}", value, lineNumber);
+					return;
+				}
+				names.add(rule);
+				break;
+			}
+			default:
+				log.warn("Ignoring unknown category rule {} on line {}", key, lineNumber);
+		}
+	}
+
+	/**
+	 * @return the id, or -1 if it is neither a number nor an ItemID constant
+	 *         listed in {@link ItemIdNames}
+	 */
+	private static int parseItemId(String value)
+	{
+		if (value.startsWith(ITEM_ID_PREFIX))
+		{
+			return ItemIdNames.get(value.substring(ITEM_ID_PREFIX.length()));
+		}
+
+		try
+		{
+			return Integer.parseInt(value);
+		}
+		catch (NumberFormatException ex)
+		{
+			return -1;
+		}
+	}
+
+	/**
+	 * Assigns an inclusive range of item ids to a category
+	 */
+	static final class IdRule
+	{
+		final int category;
+		final int first;
+		final int last;
+
+		private IdRule(int category, int first, int last)
+		{
+			this.category = category;
+			this.first = first;
+			this.last = last;
+		}
+	}
+
+	/**
+	 * A lower-case name keyword, either selecting or excluding a category
+	 */
+	static final class NameRule
+	{
+		final int category;
+		final String keyword;
+		final boolean exclusion;
+		// Whether the keyword must start or end on a word boundary
+		final boolean wordStart;
+		final boolean wordEnd;
+
+		private NameRule(int category, String keyword, boolean exclusion, boolean wordStart, boolean wordEnd)
+		{
+			this.category = category;
+			this.keyword = keyword;
+			this.exclusion = exclusion;
+			this.wordStart = wordStart;
+			this.wordEnd = wordEnd;
+		}
+
+		/**
+		 * @return the rule, or null if the keyword is empty or not plain ASCII
+		 */
+		private static NameRule parse(int category, String value, boolean exclusion)
+		{
+			boolean wordStart = !value.startsWith("*");
+			boolean wordEnd = !value.endsWith("*");
+			int start = wordStart ? 0 : 1;
+			int end = wordEnd ? value.length() : value.length() - 1;
+			if (end <= start)
+			{
+				return null;
+			}
+
+			String keyword = value.substring(start, end).toLowerCase(Locale.ROOT);
+			for (int i = 0; i < keyword.length(); i++)
+			{
+				char c = keyword.charAt(i);
+				if (c >= CategoryMatcher.ALPHABET_SIZE || c == '*')
+				{
+					return null;
+				}
+			}
+			return new NameRule(category, keyword, exclusion, wordStart, wordEnd);
+		}
+	}
+}
@@ -0,0 +1,363 @@
+package com.bankbuddy;
+
+import java.util.Arrays;
+
+/**
+ * Incrementally values an item container by diffing each new set of items
+ * against a per-slot snapshot of the previous one. Alongside the totals it
+ * keeps per-category values and stacks ordered by value, plus the stacks worth
+ * at least the valuable item threshold, all updated from the same slot deltas.
+ *
+ * Unique items are counted by canonical id, so a noted and an unnoted stack of
+ * the same item count once. Placeholders are not counted at all, nor do they
+ * appear in the category or valuable stacks.
+ */
+public class ContainerValuation
+{
+	private static final int[] EMPTY = new int[0];
+
+	// Per-slot snapshot of the last valued container
+	private int[] slotIds = EMPTY;
+	private int[] slotCanonicalIds = EMPTY;
+	private int[] slotQuantities = EMPTY;
+	private int[] slotPrices = EMPTY;
+	private int[] slotCategories = EMPTY;
+
+	// Number of non-empty stacks of each canonical id, used for the unique item count
+	private final ItemQuantityIndex slotCounts = new ItemQuantityIndex();
+	// Stack counts summed over every container sharing the index, or null
+	private final ItemQuantityIndex sharedSlotCounts;
+	// Total quantity held of each canonical id
+	private final ItemQuantityIndex itemQuantities = new ItemQuantityIndex();
+
+	private final long[] categoryValues;
+	// Stacks of each category, used for the stack counts and top stacks
+	private final StackValueIndex[] categoryStacks;
+	// Stacks worth at least the threshold
+	private final StackValueIndex valuableStacks = new StackValueIndex();
+	private long valuableThreshold = Long.MAX_VALUE;
+
+	private long totalValue = 0;
+	private long totalItems = 0;
+	private boolean valid = false;
+
+	public ContainerValuation(int categoryCount)
+	{
+		this(categoryCount, null);
+	}
+
+	/**
+	 * @param sharedSlotCounts index shared with other containers, which this
+	 *                         one adds its slot counts to and removes them from
+	 */
+	public ContainerValuation(int categoryCount, ItemQuantityIndex sharedSlotCounts)
+	{
+		this.sharedSlotCounts = sharedSlotCounts;
+		categoryValues = new long[categoryCount];
+		categoryStacks = new StackValueIndex[categoryCount];
+		for (int category = 0; category < categoryCount; category++)
+		{
+			categoryStacks[category] = new StackValueIndex();
+		}
+	}
+
+	/**
+	 * Applies the given container contents, treating every id as its own
+	 * canonical id
+	 *
+	 * @see #update(int[], int[], int[], int[], int[])
+	 */
+	public boolean update(int[] ids, int[] quantities, int[] prices, int[] categories)
+	{
+		return update(ids, ids, quantities, prices, categories);
+	}
+
+	/**
+	 * Applies the given container contents, only touching the slots whose id,
+	 * quantity, price or category changed. Falls back to a full rebuild when the
+	 * container size changes or the snapshot has been invalidated.
+	 *
+	 * @param canonicalIds canonical id of each slot, which depends on its id only
+	 * @param categories category ordinal of each slot, ignored for empty slots
+	 * @return true if any slot changed since the previous update
+	 */
+	public boolean update(int[] ids, int[] canonicalIds, int[] quantities, int[] prices, int[] categories)
+	{
+		if (!valid || ids.length != slotIds.length)
+		{
+			rebuild(ids, canonicalIds, quantities, prices, categories);
+			return true;
+		}
+
+		boolean changed = false;
+		for (int slot = 0; slot < ids.length; slot++)
+		{
+			if (ids[slot] == slotIds[slot] && quantities[slot] == slotQuantities[slot]
+				&& prices[slot] == slotPrices[slot] && (ids[slot] == -1 || categories[slot] == slotCategories[slot]))
+			{
+				continue;
+			}
+
+			changed = true;
+			if (!removeSlot(slot))
+			{
+				// Snapshot no longer matches our counts, start over
+				rebuild(ids, canonicalIds, quantities, prices, categories);
+				return true;
+			}
+
+			addSlot(slot, ids[slot], canonicalIds[slot], quantities[slot], prices[slot], categories[slot]);
+		}
+
+		if (totalValue < 0 || totalItems < 0)
+		{
+			rebuild(ids, canonicalIds, quantities, prices, categories);
+		}
+
+		return changed;
+	}
+
+	/**
+	 * Forces the next update to re-price every slot
+	 */
+	public void invalidate()
+	{
+		valid = false;
+	}
+
+	/**
+	 * Sets the stack value at which stacks are indexed as valuable, re-indexing
+	 * the current stacks if it changed
+	 *
+	 * @return true if the threshold changed
+	 */
+	public boolean setValuableThreshold(long threshold)
+	{
+		if (threshold == valuableThreshold)
+		{
+			return false;
+		}
+
+		valuableThreshold = threshold;
+		valuableStacks.clear();
+		for (int slot = 0; slot < slotIds.length; slot++)
+		{
+			long value = stackValue(slot);
+			if (slotIds[slot] != -1 && slotQuantities[slot] > 0 && value >= threshold)
+			{
+				valuableStacks.add(slot, value);
+			}
+		}
+		return true;
+	}
+
+	public void clear()
+	{
+		slotIds = EMPTY;
+		slotCanonicalIds = EMPTY;
+		slotQuantities = EMPTY;
+		slotPrices = EMPTY;
+		slotCategories = EMPTY;
+		clearIndexes();
+		totalValue = 0;
+		totalItems = 0;
+		valid = false;
+	}
+
+	public long getTotalValue()
+	{
+		return totalValue;
+	}
+
+	public long getTotalItems()
+	{
+		return totalItems;
+	}
+
+	public int getUniqueItems()
+	{
+		return slotCounts.size();
+	}
+
+	/**
+	 * @return the quantity index by canonical id, valid until the next update
+	 */
+	public ItemQuantityIndex getItemQuantities()
+	{
+		return itemQuantities;
+	}
+
+	/**
+	 * Copies out every category's value and stack count along with its top
+	 * stacks, without touching the slots
+	 */
+	public CategoryBreakdown getCategories(int topN)
+	{
+		CategoryBreakdown breakdown = new CategoryBreakdown(categoryValues.length, topN);
+		for (int category = 0; category < categoryValues.length; category++)
+		{
+			StackValueIndex stacks = categoryStacks[category];
+			breakdown.set(category, categoryValues[category], stacks.size());
+			for (int rank = 0; rank < Math.min(topN, stacks.size()); rank++)
+			{
+				breakdown.addTop(category, slotIds[stacks.getSlot(rank)], stacks.getValue(rank));
+			}
+		}
+		return breakdown;
+	}
+
+	/**
+	 * Copies out the stacks worth at least the threshold, most valuable first
+	 */
+	public ValuableItems getValuableItems()
+	{
+		int count = valuableStacks.size();
+		int[] itemIds = new int[count];
+		long[] values = new long[count];
+		for (int rank = 0; rank < count; rank++)
+		{
+			itemIds[rank] = slotIds[valuableStacks.getSlot(rank)];
+			values[rank] = valuableStacks.getValue(rank);
+		}
+		return new ValuableItems(itemIds, values, count, valuableThreshold);
+	}
+
+	private void rebuild(int[] ids, int[] canonicalIds, int[] quantities, int[] prices, int[] categories)
+	{
+		if (slotIds.length != ids.length)
+		{
+			slotIds = new int[ids.length];
+			slotCanonicalIds = new int[ids.length];
+			slotQuantities = new int[ids.length];
+			slotPrices = new int[ids.length];
+			slotCategories = new int[ids.length];
+		}
+
+		clearIndexes();
+		totalValue = 0;
+		totalItems = 0;
+
+		for (int slot = 0; slot < ids.length; slot++)
+		{
+			addSlot(slot, ids[slot], canonicalIds[slot], quantities[slot], prices[slot], categories[slot]);
+		}
+
+		valid = true;
+	}
+
+	private void clearIndexes()
+	{
+		if (sharedSlotCounts != null)
+		{
+			for (int i = slotCounts.next(-1); i >= 0; i = slotCounts.next(i))
+			{
+				removeShared(slotCounts.keyAt(i), slotCounts.valueAt(i));
+			}
+		}
+		slotCounts.clear();
+		itemQuantities.clear();
+		Arrays.fill(categoryValues, 0);
+		for (StackValueIndex stacks : categoryStacks)
+		{
+			stacks.clear();
+		}
+		valuableStacks.clear();
+	}
+
+	private long stackValue(int slot)
+	{
+		return (long) slotPrices[slot] * slotQuantities[slot];
+	}
+
+	private void addSlot(int slot, int itemId, int canonicalId, int quantity, int price, int category)
+	{
+		slotIds[slot] = itemId;
+		slotCanonicalIds[slot] = canonicalId;
+		slotQuantities[slot] = quantity;
+
+		if (itemId == -1)
+		{
+			slotPrices[slot] = 0;
+			slotCategories[slot] = 0;
+			return;
+		}
+
+		slotPrices[slot] = price;
+		slotCategories[slot] = category;
+		if (quantity <= 0)
+		{
+			// Placeholders hold nothing, so they stay out of every count and index
+			return;
+		}
+
+		slotCounts.add(canonicalId, 1);
+		if (sharedSlotCounts != null)
+		{
+			sharedSlotCounts.add(canonicalId, 1);
+		}
+		itemQuantities.add(canonicalId, quantity);
+		long value = (long) price * quantity;
+		totalValue += value;
+		totalItems += quantity;
+
+		categoryValues[category] += value;
+		categoryStacks[category].add(slot, value);
+		if (value >= valuableThreshold)
+		{
+			valuableStacks.add(slot, value);
+		}
+	}
+
+	private boolean removeSlot(int slot)
+	{
+		if (slotIds[slot] != -1 && slotQuantities[slot] > 0)
+		{
+			int canonicalId = slotCanonicalIds[slot];
+			long count = slotCounts.get(canonicalId);
+			if (count <= 0)
+			{
+				return false;
+			}
+
+			if (count == 1)
+			{
+				slotCounts.remove(canonicalId);
+				itemQuantities.remove(canonicalId);
+			}
+			else
+			{
+				slotCounts.put(canonicalId, count - 1);
+				itemQuantities.add(canonicalId, -slotQuantities[slot]);
+			}
+			if (sharedSlotCounts != null)
+			{
+				removeShared(canonicalId, 1);
+			}
+
+			long value = stackValue(slot);
+			int category = slotCategories[slot];
+			totalValue -= value;
+			totalItems -= slotQuantities[slot];
+			categoryValues[category] -= value;
+			categoryStacks[category].remove(slot, value);
+			if (value >= valuableThreshold)
+			{
+				valuableStacks.remove(slot, value);
+			}
+		}
+
+		slotIds[slot] = -1;
+		slotQuantities[slot] = 0;
+		slotPrices[slot] = 0;
+		slotCategories[slot] = 0;
+		return true;
+	}
+
+	private void removeShared(int itemId, long count)
+	{
+		if (sharedSlotCounts.add(itemId, -count) <= 0)
+		{
+			sharedSlotCounts.remove(itemId);
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package com.bankbuddy;
+
+/**
+ * File formats the bank can be exported in
+ */
+public enum ExportFormat
+{
+	CSV("csv"),
+	JSON("json");
+
+	private final String extension;
+
+	ExportFormat(String extension)
+	{
+		this.extension = extension;
+	}
+
+	public String getExtension()
+	{
+		return extension;
+	}
+}
@@ -0,0 +1,34 @@
+package com.bankbuddy;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Item data held in memory, for running organizer queries and benchmarks
+ * without a client. Unknown items are priced at 0 and named by their id.
+ */
+public class InMemoryItemDataProvider implements ItemDataProvider
+{
+	private final ItemQuantityIndex prices = new ItemQuantityIndex();
+	private final Map<Integer, String> names = new HashMap<>();
+
+	public InMemoryItemDataProvider put(int itemId, String name, int price)
+	{
+		names.put(itemId, name);
+		prices.put(itemId, price);
+		return this;
+	}
+
+	@Override
+	public int getPrice(int itemId)
+	{
+		return (int) prices.get(itemId);
+	}
+
+	@Override
+	public String getName(int itemId)
+	{
+		String name = names.get(itemId);
+		return name != null ? name : "Item " + itemId;
+	}
+}
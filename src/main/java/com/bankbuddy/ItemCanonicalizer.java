@@ -0,0 +1,107 @@
+package com.bankbuddy;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import net.runelite.client.game.ItemManager;
+import net.runelite.client.game.ItemVariationMapping;
+
+/**
+ * Maps item ids to the id they are counted and priced as: noted items and
+ * placeholders map to the item itself. For categories, charged and degraded
+ * variants map further to their base item. Each mapping is computed once per
+ * id into a table that grows on demand, so lookups after the first are a
+ * single array read.
+ *
+ * Not thread safe; used on the client thread.
+ */
+@Singleton
+public class ItemCanonicalizer
+{
+	// Ids above this are not worth a table slot and are mapped on every lookup
+	private static final int MAX_TABLE_ID = 1 << 17;
+
+	private final IntUnaryOperator canonicalizer;
+	private final IntUnaryOperator variations;
+
+	// Mapped id + 1 per item id, 0 where not mapped yet
+	private int[] canonicalIds = new int[0];
+	private int[] baseIds = new int[0];
+
+	@Inject
+	ItemCanonicalizer(ItemManager itemManager)
+	{
+		this(itemManager::canonicalize, ItemVariationMapping::map);
+	}
+
+	ItemCanonicalizer(IntUnaryOperator canonicalizer, IntUnaryOperator variations)
+	{
+		this.canonicalizer = canonicalizer;
+		this.variations = variations;
+	}
+
+	/**
+	 * Gets the id an item is counted and priced as, which is the item itself
+	 * for noted items and placeholders
+	 */
+	public int getCanonicalId(int itemId)
+	{
+		if (itemId < 0 || itemId >= MAX_TABLE_ID)
+		{
+			return itemId < 0 ? itemId : canonicalizer.applyAsInt(itemId);
+		}
+
+		if (itemId >= canonicalIds.length)
+		{
+			canonicalIds = grow(canonicalIds, itemId);
+		}
+
+		int mapped = canonicalIds[itemId] - 1;
+		if (mapped == -1)
+		{
+			mapped = canonicalizer.applyAsInt(itemId);
+			canonicalIds[itemId] = mapped + 1;
+		}
+		return mapped;
+	}
+
+	/**
+	 * Gets the id an item is categorized as, which is the base item for
+	 * charged and degraded variants as well as noted items and placeholders
+	 */
+	public int getBaseId(int itemId)
+	{
+		if (itemId < 0 || itemId >= MAX_TABLE_ID)
+		{
+			return itemId < 0 ? itemId : variations.applyAsInt(getCanonicalId(itemId));
+		}
+
+		if (itemId >= baseIds.length)
+		{
+			baseIds = grow(baseIds, itemId);
+		}
+
+		int mapped = baseIds[itemId] - 1;
+		if (mapped == -1)
+		{
+			mapped = variations.applyAsInt(getCanonicalId(itemId));
+			baseIds[itemId] = mapped + 1;
+		}
+		return mapped;
+	}
+
+	/**
+	 * Forgets every mapping, as when the game data is reloaded
+	 */
+	public void clear()
+	{
+		Arrays.fill(canonicalIds, 0);
+		Arrays.fill(baseIds, 0);
+	}
+
+	private static int[] grow(int[] table, int itemId)
+	{
+		return Arrays.copyOf(table, Math.min(MAX_TABLE_ID, Math.max(itemId + 1, table.length * 2)));
+	}
+}
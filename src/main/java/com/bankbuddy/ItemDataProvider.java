@@ -0,0 +1,50 @@
+package com.bankbuddy;
+
+/**
+ * Source of item prices and names. Batch lookups let callers resolve a whole
+ * bank in one call so implementations can amortize per-call overhead.
+ */
+public interface ItemDataProvider
+{
+	/**
+	 * Gets the unit price of an item
+	 */
+	int getPrice(int itemId);
+
+	/**
+	 * Gets the display name of an item
+	 */
+	String getName(int itemId);
+
+	/**
+	 * Gets an item's name along with its noted and placeholder flags
+	 */
+	default ItemMetadata getMetadata(int itemId)
+	{
+		return new ItemMetadata(getName(itemId), false, false);
+	}
+
+	/**
+	 * Looks up the prices of the first count ids into prices. Empty slots (-1)
+	 * are priced at 0.
+	 */
+	default void getPrices(int[] itemIds, int count, int[] prices)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			prices[i] = itemIds[i] == -1 ? 0 : getPrice(itemIds[i]);
+		}
+	}
+
+	/**
+	 * Looks up the names of the first count ids into names. Empty slots (-1)
+	 * are given a null name.
+	 */
+	default void getNames(int[] itemIds, int count, String[] names)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			names[i] = itemIds[i] == -1 ? null : getName(itemIds[i]);
+		}
+	}
+}
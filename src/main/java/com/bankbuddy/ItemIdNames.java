@@ -0,0 +1,106 @@
+package com.bankbuddy;
+
+import java.util.Map;
+import net.runelite.api.ItemID;
+
+/**
+ * Item ids that category rules may name as ItemID.NAME constants. The names
+ * are resolved here by the compiler, so a renamed constant breaks the build
+ * instead of silently dropping a rule; names not listed must be written as
+ * numeric ids.
+ */
+@SuppressWarnings("deprecation")
+final class ItemIdNames
+{
+	private static final Map<String, Integer> IDS = Map.ofEntries(
+		Map.entry("ABYSSAL_WHIP", ItemID.ABYSSAL_WHIP),
+		Map.entry("DRAGON_SCIMITAR", ItemID.DRAGON_SCIMITAR),
+		Map.entry("RUNE_SCIMITAR", ItemID.RUNE_SCIMITAR),
+		Map.entry("RUNE_PLATEBODY", ItemID.RUNE_PLATEBODY),
+		Map.entry("DRAGON_PLATEBODY", ItemID.DRAGON_PLATEBODY),
+		Map.entry("BARROWS_GLOVES", ItemID.BARROWS_GLOVES),
+		Map.entry("DRAGON_BOOTS", ItemID.DRAGON_BOOTS),
+		Map.entry("RUNE_BOOTS", ItemID.RUNE_BOOTS),
+		Map.entry("COMBAT_BRACELET", ItemID.COMBAT_BRACELET),
+		Map.entry("DRAGON_PICKAXE", ItemID.DRAGON_PICKAXE),
+		Map.entry("RUNE_PICKAXE", ItemID.RUNE_PICKAXE),
+		Map.entry("DRAGON_AXE", ItemID.DRAGON_AXE),
+		Map.entry("RUNE_AXE", ItemID.RUNE_AXE),
+		Map.entry("DRAGON_HARPOON", ItemID.DRAGON_HARPOON),
+		Map.entry("LOBSTER_POT", ItemID.LOBSTER_POT),
+		Map.entry("SMALL_FISHING_NET", ItemID.SMALL_FISHING_NET),
+		Map.entry("FLY_FISHING_ROD", ItemID.FLY_FISHING_ROD),
+		Map.entry("SUPER_COMBAT_POTION4", ItemID.SUPER_COMBAT_POTION4),
+		Map.entry("SUPER_ATTACK4", ItemID.SUPER_ATTACK4),
+		Map.entry("SUPER_STRENGTH4", ItemID.SUPER_STRENGTH4),
+		Map.entry("SUPER_DEFENCE4", ItemID.SUPER_DEFENCE4),
+		Map.entry("RANGING_POTION4", ItemID.RANGING_POTION4),
+		Map.entry("MAGIC_POTION4", ItemID.MAGIC_POTION4),
+		Map.entry("PRAYER_POTION4", ItemID.PRAYER_POTION4),
+		Map.entry("SUPER_RESTORE4", ItemID.SUPER_RESTORE4),
+		Map.entry("ANTIFIRE_POTION4", ItemID.ANTIFIRE_POTION4),
+		Map.entry("SHARK", ItemID.SHARK),
+		Map.entry("LOBSTER", ItemID.LOBSTER),
+		Map.entry("SWORDFISH", ItemID.SWORDFISH),
+		Map.entry("TUNA", ItemID.TUNA),
+		Map.entry("SALMON", ItemID.SALMON),
+		Map.entry("TROUT", ItemID.TROUT),
+		Map.entry("MONKFISH", ItemID.MONKFISH),
+		Map.entry("KARAMBWAN", ItemID.KARAMBWAN),
+		Map.entry("NATURE_RUNE", ItemID.NATURE_RUNE),
+		Map.entry("LAW_RUNE", ItemID.LAW_RUNE),
+		Map.entry("DEATH_RUNE", ItemID.DEATH_RUNE),
+		Map.entry("BLOOD_RUNE", ItemID.BLOOD_RUNE),
+		Map.entry("SOUL_RUNE", ItemID.SOUL_RUNE),
+		Map.entry("COSMIC_RUNE", ItemID.COSMIC_RUNE),
+		Map.entry("CHAOS_RUNE", ItemID.CHAOS_RUNE),
+		Map.entry("FIRE_RUNE", ItemID.FIRE_RUNE),
+		Map.entry("WATER_RUNE", ItemID.WATER_RUNE),
+		Map.entry("AIR_RUNE", ItemID.AIR_RUNE),
+		Map.entry("EARTH_RUNE", ItemID.EARTH_RUNE),
+		Map.entry("MIND_RUNE", ItemID.MIND_RUNE),
+		Map.entry("IRON_ORE", ItemID.IRON_ORE),
+		Map.entry("COAL", ItemID.COAL),
+		Map.entry("GOLD_ORE", ItemID.GOLD_ORE),
+		Map.entry("MITHRIL_ORE", ItemID.MITHRIL_ORE),
+		Map.entry("ADAMANTITE_ORE", ItemID.ADAMANTITE_ORE),
+		Map.entry("RUNITE_ORE", ItemID.RUNITE_ORE),
+		Map.entry("IRON_BAR", ItemID.IRON_BAR),
+		Map.entry("STEEL_BAR", ItemID.STEEL_BAR),
+		Map.entry("GOLD_BAR", ItemID.GOLD_BAR),
+		Map.entry("MITHRIL_BAR", ItemID.MITHRIL_BAR),
+		Map.entry("ADAMANTITE_BAR", ItemID.ADAMANTITE_BAR),
+		Map.entry("RUNITE_BAR", ItemID.RUNITE_BAR),
+		Map.entry("LOGS", ItemID.LOGS),
+		Map.entry("OAK_LOGS", ItemID.OAK_LOGS),
+		Map.entry("WILLOW_LOGS", ItemID.WILLOW_LOGS),
+		Map.entry("MAPLE_LOGS", ItemID.MAPLE_LOGS),
+		Map.entry("YEW_LOGS", ItemID.YEW_LOGS),
+		Map.entry("MAGIC_LOGS", ItemID.MAGIC_LOGS),
+		Map.entry("REDWOOD_LOGS", ItemID.REDWOOD_LOGS),
+		Map.entry("POTATO_SEED", ItemID.POTATO_SEED),
+		Map.entry("ONION_SEED", ItemID.ONION_SEED),
+		Map.entry("CABBAGE_SEED", ItemID.CABBAGE_SEED),
+		Map.entry("TOMATO_SEED", ItemID.TOMATO_SEED),
+		Map.entry("SWEETCORN_SEED", ItemID.SWEETCORN_SEED),
+		Map.entry("STRAWBERRY_SEED", ItemID.STRAWBERRY_SEED),
+		Map.entry("WATERMELON_SEED", ItemID.WATERMELON_SEED),
+		Map.entry("RANARR_SEED", ItemID.RANARR_SEED),
+		Map.entry("SNAPDRAGON_SEED", ItemID.SNAPDRAGON_SEED),
+		Map.entry("TORSTOL_SEED", ItemID.TORSTOL_SEED),
+		Map.entry("TREE_SEED", ItemID.TREE_SEED),
+		Map.entry("WILLOW_SEED", ItemID.WILLOW_SEED)
+	);
+
+	private ItemIdNames()
+	{
+	}
+
+	/**
+	 * @return the id of the constant with the given name, or -1 if it is not listed
+	 */
+	static int get(String name)
+	{
+		return IDS.getOrDefault(name, -1);
+	}
+}
@@ -0,0 +1,41 @@
+package com.bankbuddy;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import net.runelite.api.ItemComposition;
+import net.runelite.client.game.ItemManager;
+
+/**
+ * Item data backed by the client's ItemManager. Must be used on the client thread.
+ */
+@Singleton
+public class ItemManagerDataProvider implements ItemDataProvider
+{
+	private final ItemManager itemManager;
+
+	@Inject
+	ItemManagerDataProvider(ItemManager itemManager)
+	{
+		this.itemManager = itemManager;
+	}
+
+	@Override
+	public int getPrice(int itemId)
+	{
+		return itemManager.getItemPrice(itemId);
+	}
+
+	@Override
+	public String getName(int itemId)
+	{
+		return itemManager.getItemComposition(itemId).getName();
+	}
+
+	@Override
+	public ItemMetadata getMetadata(int itemId)
+	{
+		ItemComposition composition = itemManager.getItemComposition(itemId);
+		return new ItemMetadata(composition.getName(), composition.getNote() != -1,
+			composition.getPlaceholderTemplateId() != -1);
+	}
+}
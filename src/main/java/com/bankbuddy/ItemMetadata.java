@@ -0,0 +1,45 @@
+package com.bankbuddy;
+
+import java.util.Locale;
+
+/**
+ * The parts of an item's composition the plugin uses, read in one go
+ */
+public final class ItemMetadata
+{
+	private final String name;
+	private final String lowerName;
+	private final boolean noted;
+	private final boolean placeholder;
+
+	public ItemMetadata(String name, boolean noted, boolean placeholder)
+	{
+		this.name = name;
+		this.lowerName = name == null ? null : name.toLowerCase(Locale.ROOT);
+		this.noted = noted;
+		this.placeholder = placeholder;
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Gets the name in lower case, for matching
+	 */
+	public String getLowerName()
+	{
+		return lowerName;
+	}
+
+	public boolean isNoted()
+	{
+		return noted;
+	}
+
+	public boolean isPlaceholder()
+	{
+		return placeholder;
+	}
+}
@@ -0,0 +1,197 @@
+package com.bankbuddy;
+
+import java.util.Arrays;
+
+/**
+ * Bounded cache of item metadata and category ordinals by item id, so the
+ * organizer, menus and search read each item's composition once rather than
+ * on every query. Once full, entries are evicted in CLOCK order: the hand
+ * sweeps the entries, sparing and clearing those used since its last pass,
+ * which approximates LRU without reordering anything on a hit.
+ *
+ * Prices are not cached, they are passed through to the delegate.
+ *
+ * A tracked slot may need up to {@link #IDS_PER_SLOT} entries: its own id,
+ * its canonical id and the base id it is categorized by. The owner grows the
+ * cache with {@link #ensureCapacity} to cover every tracked slot, so that a
+ * full revaluation of the bank and the other tracked containers fits without
+ * the hand evicting entries the same pass needs again.
+ *
+ * Not thread safe; used on the client thread.
+ */
+public class ItemMetadataCache implements ItemDataProvider
+{
+	// Twice the largest bank, before any container has been seen
+	public static final int DEFAULT_CAPACITY = 4096;
+	public static final int IDS_PER_SLOT = 3;
+
+	private static final int UNKNOWN_CATEGORY = -1;
+
+	private final ItemDataProvider delegate;
+	private int capacity;
+
+	// Item id to entry
+	private final ItemQuantityIndex entries;
+	private int[] itemIds;
+	private ItemMetadata[] metadata;
+	private int[] categories;
+	// Whether each entry was used since the hand last passed it
+	private boolean[] referenced;
+	private int size = 0;
+	private int hand = 0;
+
+	private long hits = 0;
+	private long misses = 0;
+
+	public ItemMetadataCache(ItemDataProvider delegate)
+	{
+		this(delegate, DEFAULT_CAPACITY);
+	}
+
+	public ItemMetadataCache(ItemDataProvider delegate, int capacity)
+	{
+		this.delegate = delegate;
+		this.capacity = capacity;
+		entries = new ItemQuantityIndex(capacity);
+		itemIds = new int[capacity];
+		metadata = new ItemMetadata[capacity];
+		categories = new int[capacity];
+		referenced = new boolean[capacity];
+	}
+
+	@Override
+	public int getPrice(int itemId)
+	{
+		return delegate.getPrice(itemId);
+	}
+
+	@Override
+	public String getName(int itemId)
+	{
+		return getMetadata(itemId).getName();
+	}
+
+	@Override
+	public ItemMetadata getMetadata(int itemId)
+	{
+		if (itemId < 0)
+		{
+			return delegate.getMetadata(itemId);
+		}
+		return metadata[entryOf(itemId)];
+	}
+
+	/**
+	 * Gets the category ordinal stored for an item
+	 *
+	 * @return the ordinal, or -1 if none was stored since the last
+	 *         {@link #clearCategories}
+	 */
+	public int getCategory(int itemId)
+	{
+		return itemId < 0 ? UNKNOWN_CATEGORY : categories[entryOf(itemId)];
+	}
+
+	public void setCategory(int itemId, int category)
+	{
+		if (itemId >= 0)
+		{
+			categories[entryOf(itemId)] = category;
+		}
+	}
+
+	/**
+	 * Forgets every stored category ordinal, keeping the metadata
+	 */
+	public void clearCategories()
+	{
+		Arrays.fill(categories, 0, size, UNKNOWN_CATEGORY);
+	}
+
+	/**
+	 * Grows the cache to hold the ids of the given number of tracked slots.
+	 * It never shrinks, and the new room is filled before anything is evicted.
+	 */
+	public void ensureCapacity(int trackedSlots)
+	{
+		int needed = trackedSlots * IDS_PER_SLOT;
+		if (needed <= capacity)
+		{
+			return;
+		}
+
+		capacity = Math.max(needed, capacity * 2);
+		itemIds = Arrays.copyOf(itemIds, capacity);
+		metadata = Arrays.copyOf(metadata, capacity);
+		categories = Arrays.copyOf(categories, capacity);
+		referenced = Arrays.copyOf(referenced, capacity);
+	}
+
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+	/**
+	 * Forgets everything, as when the game data is reloaded
+	 */
+	public void clear()
+	{
+		entries.clear();
+		Arrays.fill(metadata, 0, size, null);
+		size = 0;
+		hand = 0;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public long getHits()
+	{
+		return hits;
+	}
+
+	public long getMisses()
+	{
+		return misses;
+	}
+
+	private int entryOf(int itemId)
+	{
+		int entry = (int) entries.get(itemId, -1);
+		if (entry != -1)
+		{
+			hits++;
+			referenced[entry] = true;
+			return entry;
+		}
+
+		misses++;
+		ItemMetadata loaded = delegate.getMetadata(itemId);
+		if (size < capacity)
+		{
+			entry = size++;
+		}
+		else
+		{
+			while (referenced[hand])
+			{
+				referenced[hand] = false;
+				hand = (hand + 1) % capacity;
+			}
+			entry = hand;
+			hand = (hand + 1) % capacity;
+			entries.remove(itemIds[entry]);
+		}
+
+		entries.put(itemId, entry);
+		itemIds[entry] = itemId;
+		metadata[entry] = loaded;
+		categories[entry] = UNKNOWN_CATEGORY;
+		// Unlike entries that were hit, new ones go on the next pass of the hand
+		referenced[entry] = false;
+		return entry;
+	}
+}
@@ -0,0 +1,251 @@
+package com.bankbuddy;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from item id to a long (quantity or value) without boxing.
+ * Clearing keeps the backing arrays so the index can be reused between bank events.
+ *
+ * Entries are iterated with a cursor:
+ * <pre>
+ * for (int i = index.next(-1); i >= 0; i = index.next(i))
+ * {
+ *     int itemId = index.keyAt(i);
+ *     long quantity = index.valueAt(i);
+ * }
+ * </pre>
+ */
+public class ItemQuantityIndex
+{
+	private static final int FREE = Integer.MIN_VALUE;
+	private static final int DEFAULT_CAPACITY = 1024;
+
+	private int[] keys;
+	private long[] values;
+	private int mask;
+	private int size;
+	private int resizeAt;
+
+	public ItemQuantityIndex()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	public ItemQuantityIndex(int expectedSize)
+	{
+		allocate(tableSizeFor(expectedSize));
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	public boolean containsKey(int key)
+	{
+		return find(key) >= 0;
+	}
+
+	/**
+	 * @return the value stored for the key, or 0 if it is absent
+	 */
+	public long get(int key)
+	{
+		return get(key, 0);
+	}
+
+	/**
+	 * @return the value stored for the key, or defaultValue if it is absent
+	 */
+	public long get(int key, long defaultValue)
+	{
+		int slot = find(key);
+		return slot >= 0 ? values[slot] : defaultValue;
+	}
+
+	public void put(int key, long value)
+	{
+		int slot = insertionSlot(key);
+		values[slot] = value;
+	}
+
+	/**
+	 * Adds delta to the value stored for the key, inserting it if absent
+	 *
+	 * @return the new value
+	 */
+	public long add(int key, long delta)
+	{
+		int slot = insertionSlot(key);
+		return values[slot] += delta;
+	}
+
+	public boolean remove(int key)
+	{
+		int slot = find(key);
+		if (slot < 0)
+		{
+			return false;
+		}
+
+		// Backward-shift deletion keeps probe chains intact without tombstones
+		int hole = slot;
+		int next = (hole + 1) & mask;
+		while (keys[next] != FREE)
+		{
+			int home = hash(keys[next]) & mask;
+			if (((next - home) & mask) >= ((next - hole) & mask))
+			{
+				keys[hole] = keys[next];
+				values[hole] = values[next];
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+
+		keys[hole] = FREE;
+		values[hole] = 0;
+		size--;
+		return true;
+	}
+
+	/**
+	 * Removes all entries while keeping the allocated tables
+	 */
+	public void clear()
+	{
+		if (size == 0)
+		{
+			return;
+		}
+
+		Arrays.fill(keys, FREE);
+		Arrays.fill(values, 0);
+		size = 0;
+	}
+
+	/**
+	 * @return the next occupied table position after the given one, or -1 when done
+	 */
+	public int next(int position)
+	{
+		for (int i = position + 1; i < keys.length; i++)
+		{
+			if (keys[i] != FREE)
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public int keyAt(int position)
+	{
+		return keys[position];
+	}
+
+	public long valueAt(int position)
+	{
+		return values[position];
+	}
+
+	private int find(int key)
+	{
+		int slot = hash(key) & mask;
+		while (true)
+		{
+			int current = keys[slot];
+			if (current == key)
+			{
+				return slot;
+			}
+			if (current == FREE)
+			{
+				return -1;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	private int insertionSlot(int key)
+	{
+		if (key == FREE)
+		{
+			throw new IllegalArgumentException("Unsupported key: " + key);
+		}
+
+		int slot = hash(key) & mask;
+		while (true)
+		{
+			int current = keys[slot];
+			if (current == key)
+			{
+				return slot;
+			}
+			if (current == FREE)
+			{
+				break;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		if (size >= resizeAt)
+		{
+			grow();
+			return insertionSlot(key);
+		}
+
+		keys[slot] = key;
+		size++;
+		return slot;
+	}
+
+	private void grow()
+	{
+		int[] oldKeys = keys;
+		long[] oldValues = values;
+		allocate(oldKeys.length << 1);
+
+		for (int i = 0; i < oldKeys.length; i++)
+		{
+			if (oldKeys[i] != FREE)
+			{
+				int slot = hash(oldKeys[i]) & mask;
+				while (keys[slot] != FREE)
+				{
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+				size++;
+			}
+		}
+	}
+
+	private void allocate(int capacity)
+	{
+		keys = new int[capacity];
+		values = new long[capacity];
+		Arrays.fill(keys, FREE);
+		mask = capacity - 1;
+		size = 0;
+		resizeAt = capacity >> 1; // keep probe chains short with a 0.5 load factor
+	}
+
+	private static int tableSizeFor(int expectedSize)
+	{
+		int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) - 1) << 2;
+		return Math.max(capacity, 16);
+	}
+
+	private static int hash(int key)
+	{
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
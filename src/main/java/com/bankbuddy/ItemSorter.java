@@ -0,0 +1,327 @@
+package com.bankbuddy;
+
+import java.util.Arrays;
+
+/**
+ * Sorts bank slots by keys extracted once into primitive arrays, so a sort
+ * costs one lookup per item rather than one per comparison. Ties are always
+ * broken by slot order, making every result deterministic.
+ */
+final class ItemSorter
+{
+	private static final int INSERTION_SORT_THRESHOLD = 16;
+
+	private ItemSorter()
+	{
+	}
+
+	/**
+	 * Sorts slots by their keys
+	 *
+	 * @param keys  sort key of each entry, aligned with slots
+	 * @param slots slot of each entry, in ascending slot order
+	 * @param count number of entries to sort
+	 * @return the slots in sorted order
+	 */
+	static int[] sort(long[] keys, int[] slots, int count, boolean descending)
+	{
+		int[] order = sortedPositions(keys, count, descending);
+		for (int i = 0; i < count; i++)
+		{
+			order[i] = slots[order[i]];
+		}
+		return order;
+	}
+
+	/**
+	 * Selects the first k slots of the sorted order without sorting the rest,
+	 * using a bounded heap
+	 *
+	 * @return at most k slots in sorted order
+	 */
+	static int[] top(long[] keys, int[] slots, int count, int k, boolean descending)
+	{
+		if (k >= count)
+		{
+			return sort(keys, slots, count, descending);
+		}
+
+		TopK heap = new TopK(k, descending);
+		for (int i = 0; i < count; i++)
+		{
+			heap.offer(keys[i], slots[i]);
+		}
+		return heap.toSortedSlots();
+	}
+
+	/**
+	 * Replaces names with their rank in alphabetical order, so equal names share
+	 * a rank and sorting by rank sorts by name. Names are only compared while
+	 * ranking the distinct ones.
+	 */
+	static long[] nameRanks(String[] names, int count)
+	{
+		String[] distinct = Arrays.copyOf(names, count);
+		Arrays.sort(distinct);
+
+		int unique = 0;
+		for (int i = 0; i < count; i++)
+		{
+			if (unique == 0 || !distinct[i].equals(distinct[unique - 1]))
+			{
+				distinct[unique++] = distinct[i];
+			}
+		}
+
+		long[] ranks = new long[count];
+		for (int i = 0; i < count; i++)
+		{
+			ranks[i] = Arrays.binarySearch(distinct, 0, unique, names[i]);
+		}
+		return ranks;
+	}
+
+	/**
+	 * @return positions 0..count-1 ordered by key, ties by position
+	 */
+	private static int[] sortedPositions(long[] keys, int count, boolean descending)
+	{
+		long maxKey = 0;
+		long minKey = 0;
+		for (int i = 0; i < count; i++)
+		{
+			maxKey = Math.max(maxKey, keys[i]);
+			minKey = Math.min(minKey, keys[i]);
+		}
+
+		int[] positions = new int[count];
+		if (minKey >= 0 && maxKey <= Integer.MAX_VALUE)
+		{
+			// Pack key and position into one long and let the primitive sort do the work
+			long[] packed = new long[count];
+			for (int i = 0; i < count; i++)
+			{
+				long key = descending ? Integer.MAX_VALUE - keys[i] : keys[i];
+				packed[i] = key << 32 | i;
+			}
+			Arrays.sort(packed);
+			for (int i = 0; i < count; i++)
+			{
+				positions[i] = (int) packed[i];
+			}
+			return positions;
+		}
+
+		for (int i = 0; i < count; i++)
+		{
+			positions[i] = i;
+		}
+		quickSort(positions, keys, 0, count - 1, descending);
+		return positions;
+	}
+
+	private static void quickSort(int[] positions, long[] keys, int low, int high, boolean descending)
+	{
+		while (high - low >= INSERTION_SORT_THRESHOLD)
+		{
+			int mid = (low + high) >>> 1;
+			// Median of three as the pivot
+			if (before(keys, positions[mid], positions[low], descending))
+			{
+				swap(positions, mid, low);
+			}
+			if (before(keys, positions[high], positions[low], descending))
+			{
+				swap(positions, high, low);
+			}
+			if (before(keys, positions[high], positions[mid], descending))
+			{
+				swap(positions, high, mid);
+			}
+
+			int pivot = positions[mid];
+			int i = low;
+			int j = high;
+			while (i <= j)
+			{
+				while (before(keys, positions[i], pivot, descending))
+				{
+					i++;
+				}
+				while (before(keys, pivot, positions[j], descending))
+				{
+					j--;
+				}
+				if (i <= j)
+				{
+					swap(positions, i++, j--);
+				}
+			}
+
+			// Recurse into the smaller half to bound stack depth
+			if (j - low < high - i)
+			{
+				quickSort(positions, keys, low, j, descending);
+				low = i;
+			}
+			else
+			{
+				quickSort(positions, keys, i, high, descending);
+				high = j;
+			}
+		}
+
+		for (int i = low + 1; i <= high; i++)
+		{
+			int current = positions[i];
+			int j = i - 1;
+			while (j >= low && before(keys, current, positions[j], descending))
+			{
+				positions[j + 1] = positions[j];
+				j--;
+			}
+			positions[j + 1] = current;
+		}
+	}
+
+	private static boolean before(long[] keys, int a, int b, boolean descending)
+	{
+		return before(keys[a], a, keys[b], b, descending);
+	}
+
+	private static boolean before(long keyA, int tieA, long keyB, int tieB, boolean descending)
+	{
+		if (keyA != keyB)
+		{
+			return descending ? keyA > keyB : keyA < keyB;
+		}
+		return tieA < tieB;
+	}
+
+	private static void swap(int[] array, int i, int j)
+	{
+		int tmp = array[i];
+		array[i] = array[j];
+		array[j] = tmp;
+	}
+
+	/**
+	 * Bounded binary heap keeping the first k entries of a sort order. The root
+	 * is the entry that would be evicted next.
+	 */
+	static final class TopK
+	{
+		private final long[] keys;
+		private final int[] slots;
+		private final boolean descending;
+		private int size;
+
+		TopK(int capacity, boolean descending)
+		{
+			this.keys = new long[capacity];
+			this.slots = new int[capacity];
+			this.descending = descending;
+		}
+
+		int size()
+		{
+			return size;
+		}
+
+		void offer(long key, int slot)
+		{
+			if (keys.length == 0)
+			{
+				return;
+			}
+
+			if (size < keys.length)
+			{
+				keys[size] = key;
+				slots[size] = slot;
+				siftUp(size++);
+			}
+			else if (before(key, slot, keys[0], slots[0], descending))
+			{
+				keys[0] = key;
+				slots[0] = slot;
+				siftDown(0);
+			}
+		}
+
+		/**
+		 * @return the kept slots in sort order
+		 */
+		int[] toSortedSlots()
+		{
+			long[] sortedKeys = Arrays.copyOf(keys, size);
+			int[] sortedSlots = Arrays.copyOf(slots, size);
+			// Heap order is unrelated to slot order, so ties are broken on the slot itself
+			for (int i = 1; i < size; i++)
+			{
+				long key = sortedKeys[i];
+				int slot = sortedSlots[i];
+				int j = i - 1;
+				while (j >= 0 && before(key, slot, sortedKeys[j], sortedSlots[j], descending))
+				{
+					sortedKeys[j + 1] = sortedKeys[j];
+					sortedSlots[j + 1] = sortedSlots[j];
+					j--;
+				}
+				sortedKeys[j + 1] = key;
+				sortedSlots[j + 1] = slot;
+			}
+			return sortedSlots;
+		}
+
+		// The heap orders entries so the one latest in sort order is at the root
+		private boolean evictsBefore(int a, int b)
+		{
+			return before(keys[b], slots[b], keys[a], slots[a], descending);
+		}
+
+		private void siftUp(int index)
+		{
+			while (index > 0)
+			{
+				int parent = (index - 1) >>> 1;
+				if (!evictsBefore(index, parent))
+				{
+					return;
+				}
+				swapEntries(index, parent);
+				index = parent;
+			}
+		}
+
+		private void siftDown(int index)
+		{
+			while (true)
+			{
+				int left = index * 2 + 1;
+				if (left >= size)
+				{
+					return;
+				}
+
+				int child = left + 1 < size && evictsBefore(left + 1, left) ? left + 1 : left;
+				if (!evictsBefore(child, index))
+				{
+					return;
+				}
+				swapEntries(index, child);
+				index = child;
+			}
+		}
+
+		private void swapEntries(int i, int j)
+		{
+			long key = keys[i];
+			keys[i] = keys[j];
+			keys[j] = key;
+			int slot = slots[i];
+			slots[i] = slots[j];
+			slots[j] = slot;
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package com.bankbuddy;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-bucket histogram of durations in nanoseconds. Each power of two is
+ * split into eight linear sub-buckets, so any recorded value is reported to
+ * within 12.5% from a few hundred counters, and recording is a bit scan and an
+ * atomic increment with no allocation.
+ *
+ * Samples may be recorded and read from different threads; a read taken while
+ * recording is in progress may be off by the samples in flight.
+ */
+public class LatencyHistogram
+{
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	// Values from 2^40 ns (about 18 minutes) up share the last bucket
+	private static final int MAX_EXPONENT = 40;
+	private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	// Sample count, total and max. The max is not updated atomically, so each
+	// histogram should be recorded from one thread at a time.
+	private final AtomicLongArray totals = new AtomicLongArray(3);
+
+	public void record(long nanos)
+	{
+		long value = Math.max(0, nanos);
+		counts.incrementAndGet(bucketOf(value));
+		totals.incrementAndGet(0);
+		totals.addAndGet(1, value);
+		if (value > totals.get(2))
+		{
+			totals.set(2, value);
+		}
+	}
+
+	public long getCount()
+	{
+		return totals.get(0);
+	}
+
+	public long getTotal()
+	{
+		return totals.get(1);
+	}
+
+	public long getMax()
+	{
+		return totals.get(2);
+	}
+
+	/**
+	 * Gets the value below which the given fraction of samples fall, rounded up
+	 * to the end of its bucket
+	 *
+	 * @param quantile between 0 and 1, for example 0.99 for the 99th percentile
+	 * @return the value, or 0 if nothing was recorded
+	 */
+	public long getPercentile(double quantile)
+	{
+		long total = 0;
+		for (int bucket = 0; bucket < BUCKETS; bucket++)
+		{
+			total += counts.get(bucket);
+		}
+		if (total == 0)
+		{
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(quantile * total));
+		long seen = 0;
+		for (int bucket = 0; bucket < BUCKETS; bucket++)
+		{
+			seen += counts.get(bucket);
+			if (seen >= rank)
+			{
+				return Math.min(upperBound(bucket), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	public void reset()
+	{
+		for (int bucket = 0; bucket < BUCKETS; bucket++)
+		{
+			counts.set(bucket, 0);
+		}
+		for (int i = 0; i < totals.length(); i++)
+		{
+			totals.set(i, 0);
+		}
+	}
+
+	static int bucketOf(long value)
+	{
+		if (value < SUB_BUCKETS)
+		{
+			return (int) value;
+		}
+
+		int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT);
+		if (exponent == MAX_EXPONENT)
+		{
+			return BUCKETS - 1;
+		}
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	static long upperBound(int bucket)
+	{
+		if (bucket < SUB_BUCKETS)
+		{
+			return bucket;
+		}
+		if (bucket == BUCKETS - 1)
+		{
+			return Long.MAX_VALUE;
+		}
+
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long subBucket = bucket % SUB_BUCKETS;
+		long width = 1L << (exponent - SUB_BUCKET_BITS);
+		return ((SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS)) + width - 1;
+	}
+}
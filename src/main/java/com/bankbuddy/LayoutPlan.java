@@ -0,0 +1,83 @@
+package com.bankbuddy;
+
+/**
+ * Target arrangement of the bank computed by {@link BankLayoutPlanner}: where
+ * every item should go within its tab, how many swaps it takes to get there
+ * and which swap to make next.
+ */
+public final class LayoutPlan
+{
+	public static final LayoutPlan EMPTY = new LayoutPlan(new int[0], 0, 0, -1, -1);
+
+	private final int[] targets;
+	private final int misplaced;
+	private final int moves;
+	private final int nextFrom;
+	private final int nextTo;
+
+	/**
+	 * Takes ownership of the targets array, which must not be modified afterwards
+	 */
+	LayoutPlan(int[] targets, int misplaced, int moves, int nextFrom, int nextTo)
+	{
+		this.targets = targets;
+		this.misplaced = misplaced;
+		this.moves = moves;
+		this.nextFrom = nextFrom;
+		this.nextTo = nextTo;
+	}
+
+	/**
+	 * Gets the number of slots the plan covers
+	 */
+	public int size()
+	{
+		return targets.length;
+	}
+
+	/**
+	 * Gets the slot the item in a slot should move to, or -1 for empty slots
+	 */
+	public int getTarget(int slot)
+	{
+		return targets[slot];
+	}
+
+	public boolean isMisplaced(int slot)
+	{
+		return targets[slot] != -1 && targets[slot] != slot;
+	}
+
+	/**
+	 * Gets the number of items not yet in their planned slot
+	 */
+	public int getMisplacedCount()
+	{
+		return misplaced;
+	}
+
+	/**
+	 * Gets the number of swaps needed for the planned layout. Items are paired
+	 * into cycles by a heuristic, so it is not necessarily the fewest possible.
+	 */
+	public int getMoveCount()
+	{
+		return moves;
+	}
+
+	/**
+	 * Gets the slot holding the item to move next, or -1 if the bank is in order
+	 */
+	public int getNextFrom()
+	{
+		return nextFrom;
+	}
+
+	/**
+	 * Gets the slot the next item should be swapped into, or -1 if the bank is in order
+	 */
+	public int getNextTo()
+	{
+		return nextTo;
+	}
+}
@@ -0,0 +1,255 @@
+package com.bankbuddy;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Measures what Bank Buddy itself costs: a latency histogram and an allocation
+ * estimate per instrumented event. Recording is skipped entirely while
+ * disabled, and costs two clock reads and two counter reads when enabled.
+ *
+ * Every metric must be recorded from one thread and must not nest inside
+ * itself; different metrics may nest freely.
+ *
+ * The JVM's per-thread allocation counting is only switched on while recording,
+ * and put back the way it was found when recording stops.
+ */
+@Slf4j
+@Singleton
+public class PluginMetrics
+{
+	public enum Metric
+	{
+		CALCULATE_BANK_VALUE("Bank capture"),
+		VALUATION("Valuation"),
+		MENU_ENTRY_ADDED("Menu entries"),
+		ORGANIZER_QUERY("Organizer query"),
+		LAYOUT_PLAN("Layout plan"),
+		SEARCH("Search"),
+		OVERLAY_RENDER("Overlay render");
+
+		private final String label;
+
+		Metric(String label)
+		{
+			this.label = label;
+		}
+
+		public String getLabel()
+		{
+			return label;
+		}
+	}
+
+	private static final Metric[] METRICS = Metric.values();
+
+	private final ScheduledExecutorService executor;
+	private final com.sun.management.ThreadMXBean threadBean;
+	// Bytes the allocation counter itself reports allocating per read
+	private volatile long allocationOverhead;
+	// Whether allocation counting was on before recording turned it on
+	private boolean allocationTrackingWasEnabled;
+
+	private final LatencyHistogram[] histograms = new LatencyHistogram[METRICS.length];
+	private final long[] allocatedBytes = new long[METRICS.length];
+	// Start of the sample in progress per metric, owned by the recording thread
+	private final long[] startNanos = new long[METRICS.length];
+	private final long[] startBytes = new long[METRICS.length];
+
+	private volatile boolean enabled;
+	private ScheduledFuture<?> logTask;
+
+	@Inject
+	PluginMetrics(ScheduledExecutorService executor)
+	{
+		this.executor = executor;
+		for (Metric metric : METRICS)
+		{
+			histograms[metric.ordinal()] = new LatencyHistogram();
+		}
+
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean
+			&& ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported())
+		{
+			threadBean = (com.sun.management.ThreadMXBean) bean;
+		}
+		else
+		{
+			threadBean = null;
+		}
+	}
+
+	/**
+	 * Turns recording on or off, and schedules a summary in the log every
+	 * interval while the interval is positive
+	 */
+	public synchronized void configure(boolean overlayEnabled, int logIntervalMinutes)
+	{
+		boolean enable = overlayEnabled || logIntervalMinutes > 0;
+		if (enable && !enabled)
+		{
+			startAllocationTracking();
+			enabled = true;
+		}
+		else if (!enable && enabled)
+		{
+			enabled = false;
+			stopAllocationTracking();
+		}
+
+		if (logTask != null)
+		{
+			logTask.cancel(false);
+			logTask = null;
+		}
+		if (logIntervalMinutes > 0)
+		{
+			logTask = executor.scheduleWithFixedDelay(this::logSummary,
+				logIntervalMinutes, logIntervalMinutes, TimeUnit.MINUTES);
+		}
+	}
+
+	public synchronized void stop()
+	{
+		configure(false, 0);
+	}
+
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	/**
+	 * Starts a sample of a metric on the current thread
+	 */
+	public void begin(Metric metric)
+	{
+		if (!enabled)
+		{
+			return;
+		}
+
+		int index = metric.ordinal();
+		startBytes[index] = currentThreadAllocatedBytes();
+		startNanos[index] = System.nanoTime();
+	}
+
+	/**
+	 * Ends the sample started by the last {@link #begin} of a metric, ignoring
+	 * it if recording was off when it started
+	 */
+	public void end(Metric metric)
+	{
+		int index = metric.ordinal();
+		long start = startNanos[index];
+		if (start == 0)
+		{
+			return;
+		}
+
+		long elapsed = System.nanoTime() - start;
+		startNanos[index] = 0;
+		histograms[index].record(elapsed);
+		allocatedBytes[index] += Math.max(0, currentThreadAllocatedBytes() - startBytes[index] - allocationOverhead);
+	}
+
+	public LatencyHistogram getHistogram(Metric metric)
+	{
+		return histograms[metric.ordinal()];
+	}
+
+	/**
+	 * Gets the average bytes allocated per sample, an estimate from the
+	 * thread's allocation counter, or -1 if the JVM does not track it
+	 */
+	public long getAllocatedPerEvent(Metric metric)
+	{
+		long count = histograms[metric.ordinal()].getCount();
+		if (threadBean == null)
+		{
+			return -1;
+		}
+		return count == 0 ? 0 : allocatedBytes[metric.ordinal()] / count;
+	}
+
+	/**
+	 * Formats one metric as count, p50, p99 and allocation per event
+	 */
+	public String summarize(Metric metric)
+	{
+		LatencyHistogram histogram = getHistogram(metric);
+		long allocated = getAllocatedPerEvent(metric);
+		return String.format("%s: n=%d p50=%s p99=%s max=%s alloc=%s",
+			metric.getLabel(), histogram.getCount(),
+			formatNanos(histogram.getPercentile(0.5)), formatNanos(histogram.getPercentile(0.99)),
+			formatNanos(histogram.getMax()), allocated < 0 ? "n/a" : allocated + "B");
+	}
+
+	public void reset()
+	{
+		for (Metric metric : METRICS)
+		{
+			histograms[metric.ordinal()].reset();
+			allocatedBytes[metric.ordinal()] = 0;
+		}
+	}
+
+	static String formatNanos(long nanos)
+	{
+		if (nanos < 1_000)
+		{
+			return nanos + "ns";
+		}
+		if (nanos < 1_000_000)
+		{
+			return String.format("%.1fus", nanos / 1_000.0);
+		}
+		return String.format("%.2fms", nanos / 1_000_000.0);
+	}
+
+	private void logSummary()
+	{
+		for (Metric metric : METRICS)
+		{
+			if (getHistogram(metric).getCount() > 0)
+			{
+				log.info("{}", summarize(metric));
+			}
+		}
+	}
+
+	private void startAllocationTracking()
+	{
+		if (threadBean == null)
+		{
+			return;
+		}
+
+		allocationTrackingWasEnabled = threadBean.isThreadAllocatedMemoryEnabled();
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+		long threadId = Thread.currentThread().getId();
+		threadBean.getThreadAllocatedBytes(threadId);
+		long first = threadBean.getThreadAllocatedBytes(threadId);
+		allocationOverhead = threadBean.getThreadAllocatedBytes(threadId) - first;
+	}
+
+	private void stopAllocationTracking()
+	{
+		if (threadBean != null && !allocationTrackingWasEnabled)
+		{
+			threadBean.setThreadAllocatedMemoryEnabled(false);
+		}
+	}
+
+	private long currentThreadAllocatedBytes()
+	{
+		return threadBean == null ? 0 : threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
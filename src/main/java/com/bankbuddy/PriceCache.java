@@ -0,0 +1,291 @@
+package com.bankbuddy;
+
+import java.util.Arrays;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.callback.ClientThread;
+
+/**
+ * Caches item prices in an immutable id-indexed array that is rebuilt off the
+ * client thread and swapped in atomically. Readers only ever see a complete
+ * snapshot; ids missing from it are priced directly once and merged into the
+ * next one.
+ *
+ * Each price expires on its own once older than the refresh interval. Every
+ * check merges the ids priced since the last one and looks up again at most
+ * {@link #MAX_LOOKUPS_PER_CHECK} expired ids, so refreshing a large table is
+ * spread over several checks rather than stalling the client thread once.
+ */
+@Slf4j
+@Singleton
+public class PriceCache
+{
+	private static final int MISSING = -1;
+	private static final long CHECK_INTERVAL_SECONDS = 10;
+	// Expired ids priced per check, at most a few milliseconds of client thread
+	private static final int MAX_LOOKUPS_PER_CHECK = 1000;
+
+	private final ItemDataProvider itemData;
+	private final ClientThread clientThread;
+	private final ScheduledExecutorService executor;
+
+	private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+
+	// Prices looked up outside the snapshot since the last check, client thread only
+	private final ItemQuantityIndex pending = new ItemQuantityIndex();
+	// Id the search for expired prices continues from, client thread only
+	private int expiryCursor = 0;
+
+	private ScheduledFuture<?> refreshTask;
+	private volatile long refreshIntervalMillis;
+	// Prices looked up before this are expired whatever their age
+	private volatile long refreshRequestedAt = 0;
+	private volatile boolean hasPending = false;
+	private volatile boolean refreshing = false;
+
+	@Inject
+	PriceCache(ItemManagerDataProvider itemData, ClientThread clientThread, ScheduledExecutorService executor)
+	{
+		this.itemData = itemData;
+		this.clientThread = clientThread;
+		this.executor = executor;
+	}
+
+	/**
+	 * Starts checking for new and expired prices on the shared executor
+	 */
+	public synchronized void start(int refreshIntervalMinutes)
+	{
+		stop();
+		refreshIntervalMillis = TimeUnit.MINUTES.toMillis(refreshIntervalMinutes);
+		refreshTask = executor.scheduleWithFixedDelay(this::refreshIfStale,
+			0, CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+	}
+
+	public synchronized void stop()
+	{
+		if (refreshTask != null)
+		{
+			refreshTask.cancel(false);
+			refreshTask = null;
+		}
+	}
+
+	/**
+	 * Drops all cached prices, on the client thread
+	 */
+	public void clear()
+	{
+		clientThread.invoke(() ->
+		{
+			snapshot.set(Snapshot.EMPTY);
+			pending.clear();
+			hasPending = false;
+			expiryCursor = 0;
+		});
+	}
+
+	/**
+	 * Expires every cached price, so they are all looked up again over the
+	 * next checks
+	 */
+	public void requestRefresh()
+	{
+		refreshRequestedAt = System.currentTimeMillis();
+	}
+
+	/**
+	 * Gets the price of an item. Must be called on the client thread, since ids
+	 * missing from the snapshot fall back to the item data provider.
+	 */
+	public int getPrice(int itemId)
+	{
+		int price = snapshot.get().get(itemId);
+		if (price != MISSING)
+		{
+			return price;
+		}
+
+		long pendingPrice = pending.get(itemId, MISSING);
+		if (pendingPrice != MISSING)
+		{
+			return (int) pendingPrice;
+		}
+
+		price = itemData.getPrice(itemId);
+		pending.put(itemId, price);
+		hasPending = true;
+		return price;
+	}
+
+	/**
+	 * Gets a version number that changes whenever a refresh changes the price
+	 * of an id that was already cached. Merging newly seen ids leaves it be,
+	 * since their prices were already handed out.
+	 */
+	public int getVersion()
+	{
+		return snapshot.get().version;
+	}
+
+	private long expiredBefore()
+	{
+		return Math.max(System.currentTimeMillis() - refreshIntervalMillis, refreshRequestedAt);
+	}
+
+	private void refreshIfStale()
+	{
+		if (refreshing || (!hasPending && snapshot.get().oldestPricedAt >= expiredBefore()))
+		{
+			return;
+		}
+
+		refreshing = true;
+		clientThread.invoke(() ->
+		{
+			try
+			{
+				collectPrices();
+			}
+			catch (RuntimeException ex)
+			{
+				refreshing = false;
+				throw ex;
+			}
+		});
+	}
+
+	/**
+	 * Looks up a batch of expired prices and collects the pending ones on the
+	 * client thread, then hands them to the executor to merge into the next
+	 * snapshot
+	 */
+	private void collectPrices()
+	{
+		Snapshot current = snapshot.get();
+		long expiredBefore = expiredBefore();
+		int[] ids = new int[pending.size() + Math.min(MAX_LOOKUPS_PER_CHECK, current.size)];
+		int[] prices = new int[ids.length];
+		int count = 0;
+
+		int tableSize = current.prices.length;
+		if (expiryCursor >= tableSize)
+		{
+			expiryCursor = 0;
+		}
+		for (int scanned = 0; scanned < tableSize && count < MAX_LOOKUPS_PER_CHECK; scanned++)
+		{
+			int itemId = expiryCursor;
+			expiryCursor = expiryCursor + 1 < tableSize ? expiryCursor + 1 : 0;
+			if (current.prices[itemId] != MISSING && current.pricedAt[itemId] < expiredBefore)
+			{
+				ids[count++] = itemId;
+			}
+		}
+		itemData.getPrices(ids, count, prices);
+		int lookups = count;
+
+		for (int i = pending.next(-1); i >= 0; i = pending.next(i))
+		{
+			int itemId = pending.keyAt(i);
+			if (itemId >= 0 && current.get(itemId) == MISSING)
+			{
+				ids[count] = itemId;
+				prices[count++] = (int) pending.valueAt(i);
+			}
+		}
+		pending.clear();
+		hasPending = false;
+
+		int size = count;
+		long pricedAt = System.currentTimeMillis();
+		executor.execute(() ->
+		{
+			try
+			{
+				// A clear since the prices were collected wins over them
+				if (snapshot.compareAndSet(current, current.merge(ids, prices, size, pricedAt)))
+				{
+					log.debug("Merged {} prices into the price snapshot, {} looked up again", size, lookups);
+				}
+			}
+			finally
+			{
+				refreshing = false;
+			}
+		});
+	}
+
+	private static final class Snapshot
+	{
+		private static final Snapshot EMPTY = new Snapshot(new int[0], new long[0], 0, 0, Long.MAX_VALUE);
+
+		private final int[] prices;
+		// When each price was looked up
+		private final long[] pricedAt;
+		private final int size;
+		private final int version;
+		private final long oldestPricedAt;
+
+		private Snapshot(int[] prices, long[] pricedAt, int size, int version, long oldestPricedAt)
+		{
+			this.prices = prices;
+			this.pricedAt = pricedAt;
+			this.size = size;
+			this.version = version;
+			this.oldestPricedAt = oldestPricedAt;
+		}
+
+		/**
+		 * Copies the snapshot with the given prices replacing or adding to its own
+		 */
+		private Snapshot merge(int[] ids, int[] newPrices, int count, long now)
+		{
+			int maxId = prices.length - 1;
+			for (int i = 0; i < count; i++)
+			{
+				maxId = Math.max(maxId, ids[i]);
+			}
+
+			int[] table = Arrays.copyOf(prices, maxId + 1);
+			long[] times = Arrays.copyOf(pricedAt, maxId + 1);
+			Arrays.fill(table, prices.length, table.length, MISSING);
+			int newSize = size;
+			boolean changed = false;
+			for (int i = 0; i < count; i++)
+			{
+				int itemId = ids[i];
+				if (table[itemId] == MISSING)
+				{
+					newSize++;
+				}
+				else if (table[itemId] != newPrices[i])
+				{
+					changed = true;
+				}
+				table[itemId] = newPrices[i];
+				times[itemId] = now;
+			}
+
+			long oldest = Long.MAX_VALUE;
+			for (int itemId = 0; itemId < table.length; itemId++)
+			{
+				if (table[itemId] != MISSING)
+				{
+					oldest = Math.min(oldest, times[itemId]);
+				}
+			}
+			return new Snapshot(table, times, newSize, changed ? version + 1 : version, oldest);
+		}
+
+		private int get(int itemId)
+		{
+			return itemId >= 0 && itemId < prices.length ? prices[itemId] : MISSING;
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package com.bankbuddy;
+
+/**
+ * Bank slots matching a search query, found by {@link BankSearchIndex}
+ */
+public final class SearchMatches
+{
+	public static final SearchMatches EMPTY = new SearchMatches("", new long[0], 0, false);
+
+	private final String query;
+	// One bit per slot
+	private final long[] slots;
+	private final int count;
+	private final boolean approximate;
+
+	/**
+	 * Takes ownership of the slot bitset, which must not be modified afterwards
+	 */
+	SearchMatches(String query, long[] slots, int count, boolean approximate)
+	{
+		this.query = query;
+		this.slots = slots;
+		this.count = count;
+		this.approximate = approximate;
+	}
+
+	public String getQuery()
+	{
+		return query;
+	}
+
+	/**
+	 * Gets the number of matching slots
+	 */
+	public int size()
+	{
+		return count;
+	}
+
+	public boolean isEmpty()
+	{
+		return count == 0;
+	}
+
+	/**
+	 * Whether the matches allow for typos, which is only the case when nothing
+	 * matched the query exactly
+	 */
+	public boolean isApproximate()
+	{
+		return approximate;
+	}
+
+	public boolean contains(int slot)
+	{
+		int word = slot >>> 6;
+		return slot >= 0 && word < slots.length && (slots[word] & 1L << slot) != 0;
+	}
+
+	/**
+	 * Copies out the matching slots in ascending order
+	 */
+	public int[] toSlots()
+	{
+		int[] result = new int[count];
+		int next = 0;
+		for (int word = 0; word < slots.length; word++)
+		{
+			for (long bits = slots[word]; bits != 0; bits &= bits - 1)
+			{
+				result[next++] = word << 6 | Long.numberOfTrailingZeros(bits);
+			}
+		}
+		return result;
+	}
+}
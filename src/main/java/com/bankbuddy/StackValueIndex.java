@@ -0,0 +1,111 @@
+package com.bankbuddy;
+
+import java.util.Arrays;
+
+/**
+ * Slots ordered by stack value, most valuable first with ties in slot order.
+ * Entries live in parallel sorted arrays, so ranked reads are direct and an
+ * add or remove is a binary search plus one array shift.
+ */
+public class StackValueIndex
+{
+	private static final int INITIAL_CAPACITY = 16;
+
+	private int[] slots = new int[INITIAL_CAPACITY];
+	private long[] values = new long[INITIAL_CAPACITY];
+	private int size;
+
+	public void add(int slot, long value)
+	{
+		int position = search(slot, value);
+		if (position >= 0)
+		{
+			return;
+		}
+		position = -position - 1;
+
+		if (size == slots.length)
+		{
+			slots = Arrays.copyOf(slots, size * 2);
+			values = Arrays.copyOf(values, size * 2);
+		}
+
+		System.arraycopy(slots, position, slots, position + 1, size - position);
+		System.arraycopy(values, position, values, position + 1, size - position);
+		slots[position] = slot;
+		values[position] = value;
+		size++;
+	}
+
+	/**
+	 * Removes a slot, which must be passed with the value it was added with
+	 *
+	 * @return false if the slot was not indexed under that value
+	 */
+	public boolean remove(int slot, long value)
+	{
+		int position = search(slot, value);
+		if (position < 0)
+		{
+			return false;
+		}
+
+		size--;
+		System.arraycopy(slots, position + 1, slots, position, size - position);
+		System.arraycopy(values, position + 1, values, position, size - position);
+		return true;
+	}
+
+	public void clear()
+	{
+		size = 0;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	public int getSlot(int rank)
+	{
+		return slots[rank];
+	}
+
+	public long getValue(int rank)
+	{
+		return values[rank];
+	}
+
+	/**
+	 * @return the position of the entry, or (-(insertion point) - 1) if absent
+	 */
+	private int search(int slot, long value)
+	{
+		int low = 0;
+		int high = size - 1;
+		while (low <= high)
+		{
+			int mid = (low + high) >>> 1;
+			long midValue = values[mid];
+			int midSlot = slots[mid];
+			if (midValue > value || (midValue == value && midSlot < slot))
+			{
+				low = mid + 1;
+			}
+			else if (midValue == value && midSlot == slot)
+			{
+				return mid;
+			}
+			else
+			{
+				high = mid - 1;
+			}
+		}
+		return -(low + 1);
+	}
+}
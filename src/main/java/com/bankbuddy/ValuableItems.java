@@ -0,0 +1,62 @@
+package com.bankbuddy;
+
+/**
+ * The most valuable stacks over a threshold, ranked from most to least
+ * valuable, along with how many stacks passed the threshold in total. Built
+ * by {@link BankOrganizer#findValuableItems} or copied from the index kept by
+ * {@link ContainerValuation}.
+ */
+public class ValuableItems
+{
+	private final int[] itemIds;
+	private final long[] values;
+	private final int matchCount;
+	private final long threshold;
+
+	ValuableItems(int[] itemIds, long[] values, int matchCount, long threshold)
+	{
+		this.itemIds = itemIds;
+		this.values = values;
+		this.matchCount = matchCount;
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Gets how many ranked stacks were kept, at most the requested limit
+	 */
+	public int size()
+	{
+		return itemIds.length;
+	}
+
+	public boolean isEmpty()
+	{
+		return matchCount == 0;
+	}
+
+	/**
+	 * Gets the number of stacks over the threshold, including those past the limit
+	 */
+	public int getMatchCount()
+	{
+		return matchCount;
+	}
+
+	/**
+	 * Gets the stack value the matches were selected with
+	 */
+	public long getThreshold()
+	{
+		return threshold;
+	}
+
+	public int getItemId(int rank)
+	{
+		return itemIds[rank];
+	}
+
+	public long getValue(int rank)
+	{
+		return values[rank];
+	}
+}
@@ -0,0 +1,482 @@
+package com.bankbuddy;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.client.callback.ClientThread;
+
+/**
+ * Values the bank and the account's other item containers off the client
+ * thread. The client thread only copies a container into primitive arrays;
+ * bursts of container changes within a short window are coalesced so only the
+ * latest contents of each container are valued. Each published bank snapshot
+ * carries the category and valuable item indexes as of its contents, and the
+ * account totals are published alongside whenever any container changed.
+ */
+@Singleton
+public class ValuationPipeline
+{
+	private static final long COALESCE_WINDOW_MS = 100;
+	// Top stacks kept per category in published snapshots
+	private static final int CATEGORY_TOP_ITEMS = 1;
+
+	// Containers counted in the account totals, the bank first
+	private static final int[] TRACKED_CONTAINERS = {
+		InventoryID.BANK.getId(), InventoryID.INVENTORY.getId(), InventoryID.EQUIPMENT.getId(),
+		InventoryID.LOOTING_BAG.getId(), InventoryID.SEED_VAULT.getId(), InventoryID.GROUP_STORAGE.getId()
+	};
+	private static final int BANK = 0;
+
+	private final PriceCache priceCache;
+	private final ItemCanonicalizer canonicalizer;
+	private final ClientThread clientThread;
+	private final ScheduledExecutorService executor;
+	private final PluginMetrics metrics;
+
+	// Worker state, only touched while holding the lock on the account
+	private final AccountValuation account = new AccountValuation(BankOrganizer.getCategoryCount(), TRACKED_CONTAINERS);
+	private final ContainerValuation valuation = account.getContainer(InventoryID.BANK.getId());
+
+	// Latest capture of each tracked container that has not been valued yet
+	private final AtomicReferenceArray<Capture> pending = new AtomicReferenceArray<>(TRACKED_CONTAINERS.length);
+	// Processed captures whose arrays can be reused by the next submit
+	private final AtomicReferenceArray<Capture> spare = new AtomicReferenceArray<>(TRACKED_CONTAINERS.length);
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	// Slot count of the last capture of each tracked container, client thread only
+	private final int[] capturedSlots = new int[TRACKED_CONTAINERS.length];
+	private volatile boolean invalidated = true;
+	private volatile long valuableThreshold = Long.MAX_VALUE;
+	private volatile IntUnaryOperator categorizer = itemId -> BankOrganizer.getCategoryCount() - 1;
+	// Bumped by clear() so in-flight work from before it is never published
+	private volatile int generation = 0;
+	// Bumped by clearAccount() so containers of the previous account are never applied
+	private volatile int accountGeneration = 0;
+	private volatile boolean accountCleared = false;
+	private volatile BankSnapshot snapshot = BankSnapshot.EMPTY;
+	private volatile AccountValue accountValue = AccountValue.EMPTY;
+	private volatile Consumer<BankSnapshot> listener;
+
+	@Inject
+	ValuationPipeline(PriceCache priceCache, ItemCanonicalizer canonicalizer, ClientThread clientThread,
+		ScheduledExecutorService executor, PluginMetrics metrics)
+	{
+		this.priceCache = priceCache;
+		this.canonicalizer = canonicalizer;
+		this.clientThread = clientThread;
+		this.executor = executor;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Sets the callback run on the client thread after each published snapshot
+	 */
+	public void setListener(Consumer<BankSnapshot> listener)
+	{
+		this.listener = listener;
+	}
+
+	/**
+	 * Sets the function mapping item ids to category ordinals. It runs on the
+	 * client thread while copying the container.
+	 */
+	public void setCategorizer(IntUnaryOperator categorizer)
+	{
+		this.categorizer = categorizer;
+	}
+
+	/**
+	 * Sets the stack value from which stacks are indexed as valuable. A change
+	 * re-indexes the current bank on the worker and republishes it.
+	 */
+	public void setValuableThreshold(long threshold)
+	{
+		if (threshold == valuableThreshold)
+		{
+			return;
+		}
+
+		valuableThreshold = threshold;
+		if (scheduled.compareAndSet(false, true))
+		{
+			executor.execute(this::drain);
+		}
+	}
+
+	/**
+	 * @return true if changes to the container are valued by this pipeline
+	 */
+	public boolean isTracked(int containerId)
+	{
+		return indexOf(containerId) != -1;
+	}
+
+	/**
+	 * Copies the container contents and schedules a valuation, ignoring
+	 * containers that are not tracked. Must be called on the client thread.
+	 */
+	public void submit(int containerId, Item[] items)
+	{
+		int index = indexOf(containerId);
+		if (index == -1)
+		{
+			return;
+		}
+
+		capturedSlots[index] = items.length;
+		Capture capture = spare.getAndSet(index, null);
+		if (capture == null || capture.ids.length != items.length)
+		{
+			capture = new Capture(items.length);
+		}
+
+		IntUnaryOperator categories = categorizer;
+		for (int slot = 0; slot < items.length; slot++)
+		{
+			int itemId = items[slot].getId();
+			capture.ids[slot] = itemId;
+			capture.quantities[slot] = items[slot].getQuantity();
+			if (itemId == -1)
+			{
+				capture.canonicalIds[slot] = -1;
+				capture.prices[slot] = 0;
+				capture.categories[slot] = 0;
+			}
+			else
+			{
+				// Noted items and placeholders share the item's price
+				int canonicalId = canonicalizer.getCanonicalId(itemId);
+				capture.canonicalIds[slot] = canonicalId;
+				capture.prices[slot] = priceCache.getPrice(canonicalId);
+				capture.categories[slot] = categories.applyAsInt(itemId);
+			}
+		}
+		capture.timestamp = System.currentTimeMillis();
+		capture.generation = generation;
+		capture.accountGeneration = accountGeneration;
+
+		// Last writer wins; a capture that was never valued is recycled
+		Capture replaced = pending.getAndSet(index, capture);
+		if (replaced != null)
+		{
+			spare.set(index, replaced);
+		}
+
+		schedule();
+	}
+
+	/**
+	 * Gets the total slot count of the tracked containers as last captured.
+	 * Must be called on the client thread.
+	 */
+	public int getTrackedSlots()
+	{
+		int slots = 0;
+		for (int count : capturedSlots)
+		{
+			slots += count;
+		}
+		return slots;
+	}
+
+	/**
+	 * Forces the next valuation to rebuild from scratch
+	 */
+	public void invalidate()
+	{
+		invalidated = true;
+	}
+
+	/**
+	 * Drops any pending work and publishes an empty snapshot
+	 */
+	public void clear()
+	{
+		generation++;
+		pending.set(BANK, null);
+		invalidated = true;
+		snapshot = BankSnapshot.EMPTY;
+	}
+
+	/**
+	 * Drops the bank and every other container, as when switching accounts
+	 */
+	public void clearAccount()
+	{
+		clear();
+		accountGeneration++;
+		for (int index = 0; index < TRACKED_CONTAINERS.length; index++)
+		{
+			pending.set(index, null);
+		}
+		accountCleared = true;
+		accountValue = AccountValue.EMPTY;
+	}
+
+	/**
+	 * Publishes a previously stored snapshot if nothing has been valued yet,
+	 * and counts it in the account totals until the bank is valued again.
+	 * Must be called on the client thread.
+	 */
+	public boolean seed(BankSnapshot stored)
+	{
+		if (snapshot != BankSnapshot.EMPTY || pending.get(BANK) != null)
+		{
+			return false;
+		}
+
+		snapshot = stored;
+
+		Capture capture = new Capture(stored.size());
+		IntUnaryOperator categories = categorizer;
+		for (int slot = 0; slot < stored.size(); slot++)
+		{
+			int itemId = stored.getItemId(slot);
+			capture.ids[slot] = itemId;
+			capture.canonicalIds[slot] = itemId == -1 ? -1 : canonicalizer.getCanonicalId(itemId);
+			capture.quantities[slot] = stored.getQuantity(slot);
+			capture.prices[slot] = stored.getPrice(slot);
+			capture.categories[slot] = itemId == -1 ? 0 : categories.applyAsInt(itemId);
+		}
+		capture.timestamp = stored.getTimestamp();
+		capture.generation = generation;
+		capture.accountGeneration = accountGeneration;
+		capture.stored = true;
+		if (pending.compareAndSet(BANK, null, capture))
+		{
+			schedule();
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the most recently published snapshot. Safe to call from any thread.
+	 */
+	public BankSnapshot getSnapshot()
+	{
+		return snapshot;
+	}
+
+	/**
+	 * Gets the most recently published account totals. Safe to call from any
+	 * thread.
+	 */
+	public AccountValue getAccountValue()
+	{
+		return accountValue;
+	}
+
+	private void schedule()
+	{
+		if (scheduled.compareAndSet(false, true))
+		{
+			executor.schedule(this::drain, COALESCE_WINDOW_MS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private static int indexOf(int containerId)
+	{
+		for (int index = 0; index < TRACKED_CONTAINERS.length; index++)
+		{
+			if (TRACKED_CONTAINERS[index] == containerId)
+			{
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	private void drain()
+	{
+		metrics.begin(PluginMetrics.Metric.VALUATION);
+		try
+		{
+			valuate();
+		}
+		finally
+		{
+			metrics.end(PluginMetrics.Metric.VALUATION);
+		}
+	}
+
+	private void valuate()
+	{
+		scheduled.set(false);
+		int currentAccount = accountGeneration;
+		boolean accountChanged = false;
+		if (accountCleared)
+		{
+			accountCleared = false;
+			synchronized (account)
+			{
+				account.clear();
+			}
+			accountChanged = true;
+		}
+
+		for (int index = BANK + 1; index < TRACKED_CONTAINERS.length; index++)
+		{
+			Capture capture = pending.getAndSet(index, null);
+			if (capture != null)
+			{
+				accountChanged |= valuateContainer(index, capture);
+			}
+		}
+
+		Capture capture = pending.getAndSet(BANK, null);
+		if (capture == null)
+		{
+			reindex();
+		}
+		else
+		{
+			accountChanged |= valuateBank(capture);
+		}
+
+		if (accountChanged)
+		{
+			AccountValue next;
+			synchronized (account)
+			{
+				next = account.toValue();
+			}
+
+			if (currentAccount == accountGeneration)
+			{
+				accountValue = next;
+			}
+		}
+	}
+
+	/**
+	 * Values a container other than the bank
+	 *
+	 * @return true if its contents changed
+	 */
+	private boolean valuateContainer(int index, Capture capture)
+	{
+		boolean changed;
+		synchronized (account)
+		{
+			changed = capture.accountGeneration == accountGeneration
+				&& account.getContainer(TRACKED_CONTAINERS[index])
+					.update(capture.ids, capture.canonicalIds, capture.quantities, capture.prices, capture.categories);
+		}
+		spare.set(index, capture);
+		return changed;
+	}
+
+	/**
+	 * Values the bank and publishes its snapshot, unless the capture came from
+	 * a stored snapshot that is already published
+	 *
+	 * @return true if its contents changed
+	 */
+	private boolean valuateBank(Capture capture)
+	{
+		BankSnapshot next;
+		synchronized (account)
+		{
+			if (capture.accountGeneration != accountGeneration)
+			{
+				return false;
+			}
+
+			if (invalidated)
+			{
+				invalidated = false;
+				valuation.invalidate();
+			}
+
+			boolean reindexed = valuation.setValuableThreshold(valuableThreshold);
+			boolean changed = valuation.update(capture.ids, capture.canonicalIds, capture.quantities,
+				capture.prices, capture.categories);
+			if (capture.stored)
+			{
+				// Valued again from scratch once the bank is opened
+				invalidated = true;
+				return changed;
+			}
+			if (!changed && !reindexed)
+			{
+				spare.set(BANK, capture);
+				return false;
+			}
+
+			// The snapshot takes over the capture's arrays, so it is not recycled
+			next = new BankSnapshot(capture.ids, capture.quantities, capture.prices,
+				valuation.getTotalValue(), valuation.getTotalItems(), valuation.getUniqueItems(),
+				capture.timestamp, valuation.getCategories(CATEGORY_TOP_ITEMS), valuation.getValuableItems());
+		}
+
+		if (capture.generation != generation)
+		{
+			return true;
+		}
+		snapshot = next;
+
+		Consumer<BankSnapshot> callback = listener;
+		if (callback != null)
+		{
+			clientThread.invokeLater(() -> callback.accept(next));
+		}
+		return true;
+	}
+
+	/**
+	 * Applies a threshold change to the published snapshot without a new
+	 * capture. Listeners are not called since the bank itself is unchanged.
+	 */
+	private void reindex()
+	{
+		int currentGeneration = generation;
+		BankSnapshot current = snapshot;
+		BankSnapshot next;
+		synchronized (account)
+		{
+			if (!valuation.setValuableThreshold(valuableThreshold)
+				// Stored snapshots and invalidated state were never indexed by this valuation
+				|| invalidated || current.getValuableItems() == null)
+			{
+				return;
+			}
+
+			next = current.withIndexes(current.getCategories(), valuation.getValuableItems());
+		}
+
+		if (currentGeneration == generation && snapshot == current)
+		{
+			snapshot = next;
+		}
+	}
+
+	private static final class Capture
+	{
+		private final int[] ids;
+		private final int[] canonicalIds;
+		private final int[] quantities;
+		private final int[] prices;
+		// Category ordinal per slot, only meaningful for occupied slots
+		private final int[] categories;
+		private long timestamp;
+		private int generation;
+		private int accountGeneration;
+		// Copied from a stored snapshot rather than the live bank
+		private boolean stored;
+
+		private Capture(int size)
+		{
+			ids = new int[size];
+			canonicalIds = new int[size];
+			quantities = new int[size];
+			prices = new int[size];
+			categories = new int[size];
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package com.bankbuddy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BankExporterTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final BankExporter exporter = new BankExporter(null);
+
+	@Test
+	public void csvDoublesQuotes() throws IOException
+	{
+		List<String> lines = exportLines(ExportFormat.CSV, "Dragon \"d\" hide, blue");
+
+		assertEquals("slot,id,name,quantity,price,value,category", lines.get(0));
+		assertEquals("0,1751,\"Dragon \"\"d\"\" hide, blue\",3,2000,6000,\"" + category() + "\"", lines.get(1));
+		assertEquals(2, lines.size());
+	}
+
+	@Test
+	public void jsonEscapesQuotesBackslashesAndControls() throws IOException
+	{
+		List<String> lines = exportLines(ExportFormat.JSON, "a\"b\\c\td\u0001");
+
+		assertEquals("[", lines.get(0));
+		assertEquals("{\"slot\":0,\"id\":1751,\"name\":\"a\\\"b\\\\c\\u0009d\\u0001\",\"quantity\":3,"
+			+ "\"price\":2000,\"value\":6000,\"category\":\"" + category() + "\"}", lines.get(1));
+		assertEquals("]", lines.get(2));
+	}
+
+	@Test
+	public void nonAsciiIsWrittenAsUtf8() throws IOException
+	{
+		String name = "Café € 💎";
+		List<String> lines = exportLines(ExportFormat.CSV, name);
+		assertEquals("0,1751,\"" + name + "\",3,2000,6000,\"" + category() + "\"", lines.get(1));
+
+		// Half a surrogate pair has no encoding
+		lines = exportLines(ExportFormat.CSV, "x\ud83dy");
+		assertEquals("0,1751,\"x?y\",3,2000,6000,\"" + category() + "\"", lines.get(1));
+	}
+
+	@Test
+	public void emptySlotsAreSkippedAndLargeBanksDrained() throws IOException
+	{
+		int slots = 4000;
+		int[] ids = new int[slots];
+		int[] quantities = new int[slots];
+		int[] prices = new int[slots];
+		String[] names = new String[slots];
+		for (int slot = 0; slot < slots; slot++)
+		{
+			boolean empty = slot % 4 == 3;
+			ids[slot] = empty ? -1 : slot;
+			quantities[slot] = empty ? 0 : slot + 1;
+			prices[slot] = empty ? 0 : 100;
+			names[slot] = empty ? null : "Item number " + slot + " with a fairly long name";
+		}
+
+		Path target = folder.getRoot().toPath().resolve("big.csv");
+		exporter.export(new BankSnapshot(ids, quantities, prices, 0, 0, 0, 0), names, new int[slots],
+			ExportFormat.CSV, target);
+
+		List<String> lines = Files.readAllLines(target, StandardCharsets.UTF_8);
+		assertEquals(1 + slots / 4 * 3, lines.size());
+		assertEquals("3998,3998,\"Item number 3998 with a fairly long name\",3999,100,399900,\""
+			+ category() + "\"", lines.get(lines.size() - 1));
+		assertFalse(Files.exists(target.resolveSibling("big.csv.tmp")));
+	}
+
+	private List<String> exportLines(ExportFormat format, String name) throws IOException
+	{
+		BankSnapshot bank = new BankSnapshot(new int[]{1751, -1}, new int[]{3, 0}, new int[]{2000, 0},
+			6000, 3, 1, 0);
+		Path target = folder.getRoot().toPath().resolve("bank." + format.getExtension());
+		exporter.export(bank, new String[]{name, null}, new int[]{0, 0}, format, target);
+		return Files.readAllLines(target, StandardCharsets.UTF_8);
+	}
+
+	private static String category()
+	{
+		return BankOrganizer.getCategoryName(0);
+	}
+}
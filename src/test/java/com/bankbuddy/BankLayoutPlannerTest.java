@@ -0,0 +1,282 @@
+package com.bankbuddy;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntUnaryOperator;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class BankLayoutPlannerTest
+{
+	private static final int CATEGORIES = 5;
+	private static final IntUnaryOperator CATEGORIZER = itemId -> itemId % CATEGORIES;
+
+	@Test
+	public void plansAreValidForRandomBanks()
+	{
+		Random random = new Random(11);
+		for (int bank = 0; bank < 300; bank++)
+		{
+			int slots = 1 + random.nextInt(400);
+			BankSnapshot snapshot = randomBank(random, slots);
+			int[] tabSizes = randomTabs(random, slots);
+			LayoutPlan plan = new BankLayoutPlanner().update(snapshot, tabSizes, CATEGORIZER);
+			assertValid(snapshot, tabSizes, plan);
+		}
+	}
+
+	@Test
+	public void unchangedBankKeepsThePlan()
+	{
+		Random random = new Random(3);
+		BankSnapshot snapshot = randomBank(random, 100);
+		int[] tabSizes = {30, 20};
+		BankLayoutPlanner planner = new BankLayoutPlanner();
+		LayoutPlan plan = planner.update(snapshot, tabSizes, CATEGORIZER);
+		assertSame(plan, planner.update(copy(snapshot), tabSizes, CATEGORIZER));
+	}
+
+	@Test
+	public void incrementalUpdatesMatchAFreshPlan()
+	{
+		Random random = new Random(5);
+		int slots = 300;
+		int[] ids = new int[slots];
+		int[] quantities = new int[slots];
+		int[] prices = new int[slots];
+		for (int slot = 0; slot < slots; slot++)
+		{
+			randomizeSlot(random, slot, ids, quantities, prices);
+		}
+
+		int[] tabSizes = {50, 80, 40};
+		BankLayoutPlanner planner = new BankLayoutPlanner();
+		for (int step = 0; step < 300; step++)
+		{
+			int changes = 1 + random.nextInt(3);
+			for (int i = 0; i < changes; i++)
+			{
+				randomizeSlot(random, random.nextInt(slots), ids, quantities, prices);
+			}
+			if (step % 25 == 0)
+			{
+				tabSizes[random.nextInt(tabSizes.length)] = random.nextInt(80);
+			}
+
+			BankSnapshot snapshot = new BankSnapshot(ids.clone(), quantities.clone(), prices.clone(), 0, 0, 0, 0);
+			LayoutPlan incremental = planner.update(snapshot, tabSizes, CATEGORIZER);
+			LayoutPlan fresh = new BankLayoutPlanner().update(snapshot, tabSizes, CATEGORIZER);
+
+			assertValid(snapshot, tabSizes, incremental);
+			assertEquals(fresh.size(), incremental.size());
+			for (int slot = 0; slot < slots; slot++)
+			{
+				assertEquals(fresh.getTarget(slot), incremental.getTarget(slot));
+			}
+			assertEquals(fresh.getMisplacedCount(), incremental.getMisplacedCount());
+			assertEquals(fresh.getMoveCount(), incremental.getMoveCount());
+			assertEquals(fresh.getNextFrom(), incremental.getNextFrom());
+			assertEquals(fresh.getNextTo(), incremental.getNextTo());
+		}
+	}
+
+	@Test
+	public void eachSuggestedSwapLowersTheMoveCount()
+	{
+		Random random = new Random(17);
+		for (int bank = 0; bank < 100; bank++)
+		{
+			int slots = 1 + random.nextInt(300);
+			BankSnapshot snapshot = randomBank(random, slots);
+			int[] tabSizes = randomTabs(random, slots);
+			BankLayoutPlanner planner = new BankLayoutPlanner();
+			LayoutPlan plan = planner.update(snapshot, tabSizes, CATEGORIZER);
+
+			int planned = plan.getMoveCount();
+			int swaps = 0;
+			while (plan.getMoveCount() > 0)
+			{
+				int moves = plan.getMoveCount();
+				int from = plan.getNextFrom();
+				snapshot = swap(snapshot, from, plan.getNextTo());
+				plan = planner.update(snapshot, tabSizes, CATEGORIZER);
+				swaps++;
+
+				// Two when the displaced item landed in a slot of its run and stays
+				int saved = moves - plan.getMoveCount();
+				assertTrue("swap saved " + saved, saved == 1 || saved == 2 && plan.getTarget(from) == from);
+				assertValid(snapshot, tabSizes, plan);
+			}
+			assertTrue(swaps <= planned);
+			assertEquals(0, plan.getMisplacedCount());
+			assertEquals(-1, plan.getNextFrom());
+		}
+	}
+
+	@Test
+	public void otherSwapsArePlannedAgain()
+	{
+		Random random = new Random(23);
+		BankSnapshot snapshot = randomBank(random, 200);
+		int[] tabSizes = {};
+		BankLayoutPlanner planner = new BankLayoutPlanner();
+		planner.update(snapshot, tabSizes, CATEGORIZER);
+
+		for (int step = 0; step < 100; step++)
+		{
+			snapshot = swap(snapshot, random.nextInt(200), random.nextInt(200));
+			LayoutPlan plan = planner.update(snapshot, tabSizes, CATEGORIZER);
+			assertValid(snapshot, tabSizes, plan);
+		}
+	}
+
+	/**
+	 * Checks that each tab's targets permute its occupied slots into category
+	 * and value order, and that the counts and next swap agree with them
+	 */
+	private static void assertValid(BankSnapshot bank, int[] tabSizes, LayoutPlan plan)
+	{
+		int slots = bank.size();
+		assertEquals(slots, plan.size());
+
+		int misplaced = 0;
+		int start = 0;
+		for (int tab = 0; tab <= tabSizes.length; tab++)
+		{
+			int end = tab < tabSizes.length ? Math.min(slots, start + Math.max(0, tabSizes[tab])) : slots;
+
+			// The item planned for each slot of the tab
+			int[] sources = new int[slots];
+			Arrays.fill(sources, -1);
+			for (int slot = start; slot < end; slot++)
+			{
+				int target = plan.getTarget(slot);
+				if (bank.getItemId(slot) == -1)
+				{
+					assertEquals(-1, target);
+					continue;
+				}
+
+				assertTrue("target outside tab", target >= start && target < end);
+				assertTrue("target is empty", bank.getItemId(target) != -1);
+				assertEquals("two items share a target", -1, sources[target]);
+				sources[target] = slot;
+				if (target != slot)
+				{
+					misplaced++;
+				}
+			}
+
+			int previous = -1;
+			for (int slot = start; slot < end; slot++)
+			{
+				if (sources[slot] == -1)
+				{
+					continue;
+				}
+				if (previous != -1)
+				{
+					int previousCategory = CATEGORIZER.applyAsInt(bank.getItemId(previous));
+					int category = CATEGORIZER.applyAsInt(bank.getItemId(sources[slot]));
+					assertTrue("categories out of order", previousCategory <= category);
+					assertTrue("values out of order", previousCategory < category
+						|| bank.getStackValue(previous) >= bank.getStackValue(sources[slot]));
+				}
+				previous = sources[slot];
+			}
+			start = end;
+		}
+		assertEquals(misplaced, plan.getMisplacedCount());
+
+		// Every cycle of misplaced items takes one swap less than its length
+		int cycles = 0;
+		boolean[] seen = new boolean[slots];
+		for (int slot = 0; slot < slots; slot++)
+		{
+			if (!plan.isMisplaced(slot) || seen[slot])
+			{
+				continue;
+			}
+			cycles++;
+			for (int current = slot; !seen[current]; current = plan.getTarget(current))
+			{
+				seen[current] = true;
+			}
+		}
+		assertEquals(misplaced - cycles, plan.getMoveCount());
+
+		int firstMisplaced = -1;
+		for (int slot = 0; slot < slots && firstMisplaced == -1; slot++)
+		{
+			if (plan.isMisplaced(slot))
+			{
+				firstMisplaced = slot;
+			}
+		}
+		assertEquals(firstMisplaced, plan.getNextTo());
+		if (firstMisplaced == -1)
+		{
+			assertEquals(-1, plan.getNextFrom());
+		}
+		else
+		{
+			assertEquals(firstMisplaced, plan.getTarget(plan.getNextFrom()));
+		}
+	}
+
+	private static BankSnapshot randomBank(Random random, int slots)
+	{
+		int[] ids = new int[slots];
+		int[] quantities = new int[slots];
+		int[] prices = new int[slots];
+		for (int slot = 0; slot < slots; slot++)
+		{
+			randomizeSlot(random, slot, ids, quantities, prices);
+		}
+		return new BankSnapshot(ids, quantities, prices, 0, 0, 0, 0);
+	}
+
+	/**
+	 * Fills a slot with an empty slot, a placeholder or a stack, drawing from
+	 * few ids and prices so many stacks tie on category and value
+	 */
+	private static void randomizeSlot(Random random, int slot, int[] ids, int[] quantities, int[] prices)
+	{
+		int kind = random.nextInt(10);
+		ids[slot] = kind == 0 ? -1 : random.nextInt(40);
+		quantities[slot] = kind == 0 || kind == 1 ? 0 : 1 + random.nextInt(3);
+		prices[slot] = kind == 0 ? 0 : 100 * random.nextInt(4);
+	}
+
+	private static int[] randomTabs(Random random, int slots)
+	{
+		int[] tabSizes = new int[random.nextInt(4)];
+		for (int tab = 0; tab < tabSizes.length; tab++)
+		{
+			tabSizes[tab] = random.nextInt(slots / 2 + 1);
+		}
+		return tabSizes;
+	}
+
+	private static BankSnapshot swap(BankSnapshot bank, int first, int second)
+	{
+		int[] ids = new int[bank.size()];
+		int[] quantities = new int[bank.size()];
+		int[] prices = new int[bank.size()];
+		for (int slot = 0; slot < bank.size(); slot++)
+		{
+			int source = slot == first ? second : slot == second ? first : slot;
+			ids[slot] = bank.getItemId(source);
+			quantities[slot] = bank.getQuantity(source);
+			prices[slot] = bank.getPrice(source);
+		}
+		return new BankSnapshot(ids, quantities, prices, 0, 0, 0, 0);
+	}
+
+	private static BankSnapshot copy(BankSnapshot bank)
+	{
+		return swap(bank, -1, -1);
+	}
+}
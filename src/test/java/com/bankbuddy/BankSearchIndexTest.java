@@ -0,0 +1,260 @@
+package com.bankbuddy;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.IntStream;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class BankSearchIndexTest
+{
+	private static final String[] WORDS = {
+		"rune", "dragon", "scimitar", "shark", "raw", "potion", "super", "bones", "law", "air", "runite", "ore"
+	};
+
+	@Test
+	public void findsSubstringsAndPrefixes()
+	{
+		BankSearchIndex index = new BankSearchIndex();
+		Names names = new Names("Rune scimitar", "Dragon scimitar", "Raw shark", "Super restore(4)", "Prune");
+		index.update(bank(0, 1, -1, 2, 3, 4), names);
+
+		assertArrayEquals(new int[]{0, 1}, index.findSubstring("mitar").toSlots());
+		assertArrayEquals(new int[]{0, 5}, index.findSubstring("  RUNE ").toSlots());
+		assertArrayEquals(new int[]{0}, index.findPrefix("rune").toSlots());
+		assertArrayEquals(new int[]{0, 1}, index.findPrefix("scim").toSlots());
+		assertTrue(index.findPrefix("mitar").isEmpty());
+		assertArrayEquals(new int[]{4}, index.findSubstring("(4)").toSlots());
+
+		// Needles shorter than a trigram are scanned
+		assertArrayEquals(new int[]{3}, index.findSubstring("sh").toSlots());
+		assertArrayEquals(new int[]{0, 3, 4}, index.findPrefix("r").toSlots());
+		assertTrue(index.findSubstring("").isEmpty());
+		assertTrue(index.search(" ").isEmpty());
+	}
+
+	@Test
+	public void retriesWithTyposOnlyWhenNothingMatches()
+	{
+		BankSearchIndex index = new BankSearchIndex();
+		Names names = new Names("Rune scimitar", "Dragon scimitar", "Raw shark", "Shark");
+		index.update(bank(0, 1, 2, 3), names);
+
+		SearchMatches exact = index.search("shark");
+		assertFalse(exact.isApproximate());
+		assertArrayEquals(new int[]{2, 3}, exact.toSlots());
+
+		// One typo allowed below eight characters
+		SearchMatches oneTypo = index.search("scimtar");
+		assertTrue(oneTypo.isApproximate());
+		assertArrayEquals(new int[]{0, 1}, oneTypo.toSlots());
+		assertTrue(index.search("scmtar").isEmpty());
+
+		// Two from eight characters on
+		assertArrayEquals(new int[]{1}, index.search("dragn scimtar").toSlots());
+		assertArrayEquals(new int[]{1}, index.findApproximate("dragn", 1).toSlots());
+		assertTrue(index.findApproximate("drgn", 1).isEmpty());
+
+		// Short queries are not retried
+		assertTrue(index.search("shk").isEmpty());
+	}
+
+	@Test
+	public void onlyChangedSlotsAreResolved()
+	{
+		BankSearchIndex index = new BankSearchIndex();
+		Names names = new Names("Rune scimitar", "Dragon scimitar", "Raw shark");
+		assertTrue(index.update(bank(0, 1, 2), names));
+		assertEquals(3, names.lookups);
+
+		assertFalse(index.update(bank(0, 1, 2), names));
+		assertEquals(3, names.lookups);
+
+		assertTrue(index.update(bank(0, -1, 1), names));
+		assertEquals(4, names.lookups);
+		assertArrayEquals(new int[]{0, 2}, index.findSubstring("scimitar").toSlots());
+		assertTrue(index.findSubstring("shark").isEmpty());
+	}
+
+	@Test
+	public void incrementalUpdatesMatchBruteForce()
+	{
+		Random random = new Random(9);
+		String[] itemNames = new String[600];
+		for (int itemId = 0; itemId < itemNames.length; itemId++)
+		{
+			itemNames[itemId] = randomName(random);
+		}
+		Names names = new Names(itemNames);
+
+		BankSearchIndex index = new BankSearchIndex();
+		int[] ids = new int[0];
+		for (int step = 0; step < 300; step++)
+		{
+			if (step % 40 == 0)
+			{
+				// Grow or shrink the bank
+				int size = 1 + random.nextInt(200);
+				int previous = ids.length;
+				ids = Arrays.copyOf(ids, size);
+				for (int slot = previous; slot < size; slot++)
+				{
+					ids[slot] = random.nextInt(itemNames.length);
+				}
+			}
+
+			int changes = 1 + random.nextInt(10);
+			for (int i = 0; i < changes; i++)
+			{
+				ids[random.nextInt(ids.length)] = random.nextInt(4) == 0 ? -1 : random.nextInt(itemNames.length);
+			}
+			index.update(bank(ids), names);
+
+			for (int query = 0; query < 5; query++)
+			{
+				String needle = randomNeedle(random);
+				assertArrayEquals(needle, expected(ids, itemNames, needle, false, 0),
+					index.findSubstring(needle).toSlots());
+				assertArrayEquals(needle, expected(ids, itemNames, needle, true, 0),
+					index.findPrefix(needle).toSlots());
+				int typos = 1 + random.nextInt(2);
+				assertArrayEquals(needle, expected(ids, itemNames, needle, false, typos),
+					index.findApproximate(needle, typos).toSlots());
+			}
+		}
+	}
+
+	@Test
+	public void manyDistinctNamesStayCorrect()
+	{
+		// Far more names pass through a small bank than are kept interned
+		String[] itemNames = new String[2000];
+		for (int itemId = 0; itemId < itemNames.length; itemId++)
+		{
+			itemNames[itemId] = "Item " + itemId;
+		}
+		Names names = new Names(itemNames);
+
+		BankSearchIndex index = new BankSearchIndex();
+		int[] ids = new int[10];
+		for (int itemId = 0; itemId < itemNames.length; itemId++)
+		{
+			ids[itemId % ids.length] = itemId;
+			index.update(bank(ids), names);
+		}
+
+		assertArrayEquals(new int[]{3}, index.findSubstring("item 1993").toSlots());
+		assertEquals(10, index.findPrefix("item").size());
+		assertTrue(index.findSubstring("item 1989").isEmpty());
+	}
+
+	/**
+	 * Gets the slots whose indexed name contains the needle with at most the
+	 * given typos, by trying every part of every name
+	 */
+	private static int[] expected(int[] ids, String[] itemNames, String needle, boolean prefix, int typos)
+	{
+		String query = needle.trim().toLowerCase(Locale.ROOT);
+		return IntStream.range(0, ids.length)
+			.filter(slot -> ids[slot] != -1 && !query.isEmpty())
+			.filter(slot ->
+			{
+				String name = ' ' + itemNames[ids[slot]].toLowerCase(Locale.ROOT);
+				if (prefix)
+				{
+					return name.contains(' ' + query);
+				}
+				for (int start = 0; start <= name.length(); start++)
+				{
+					for (int end = start; end <= name.length(); end++)
+					{
+						if (distance(query, name.substring(start, end)) <= typos)
+						{
+							return true;
+						}
+					}
+				}
+				return false;
+			})
+			.toArray();
+	}
+
+	private static int distance(String a, String b)
+	{
+		int[][] table = new int[a.length() + 1][b.length() + 1];
+		for (int i = 0; i <= a.length(); i++)
+		{
+			for (int j = 0; j <= b.length(); j++)
+			{
+				table[i][j] = i == 0 ? j : j == 0 ? i : Math.min(Math.min(table[i - 1][j], table[i][j - 1]) + 1,
+					table[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1));
+			}
+		}
+		return table[a.length()][b.length()];
+	}
+
+	private static String randomName(Random random)
+	{
+		StringBuilder name = new StringBuilder();
+		int words = 1 + random.nextInt(3);
+		for (int word = 0; word < words; word++)
+		{
+			name.append(word == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+		}
+		name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+		return name.toString();
+	}
+
+	/**
+	 * Takes part of a word, sometimes spanning into the next or with a typo
+	 */
+	private static String randomNeedle(Random random)
+	{
+		String text = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+		int start = random.nextInt(5);
+		String needle = text.substring(start, Math.min(text.length(), start + 1 + random.nextInt(7)));
+		if (random.nextBoolean())
+		{
+			char[] chars = needle.toCharArray();
+			chars[random.nextInt(chars.length)] = (char) ('a' + random.nextInt(26));
+			needle = new String(chars);
+		}
+		return random.nextBoolean() ? needle.toUpperCase(Locale.ROOT) : needle;
+	}
+
+	private static BankSnapshot bank(int... ids)
+	{
+		return new BankSnapshot(ids.clone(), new int[ids.length], new int[ids.length], 0, 0, 0, 0);
+	}
+
+	/**
+	 * Names by item id, counting the lookups made
+	 */
+	private static final class Names implements ItemDataProvider
+	{
+		private final String[] names;
+		private int lookups;
+
+		private Names(String... names)
+		{
+			this.names = names;
+		}
+
+		@Override
+		public int getPrice(int itemId)
+		{
+			return 0;
+		}
+
+		@Override
+		public String getName(int itemId)
+		{
+			lookups++;
+			return names[itemId];
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package com.bankbuddy;
+
+import java.io.IOException;
+import java.util.Arrays;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+public class BankSnapshotStoreTest
+{
+	private static final BankSnapshot SNAPSHOT = new BankSnapshot(
+		new int[]{995, 4151, -1, 11802},
+		new int[]{1_000_000, 1, 0, 0},
+		new int[]{1, 1_500_000, 0, 20_000_000},
+		2_500_000, 1_000_001, 2, 1_700_000_000_000L);
+
+	@Test
+	public void roundTrip() throws IOException
+	{
+		BankSnapshot decoded = BankSnapshotStore.decode(BankSnapshotStore.encode(SNAPSHOT));
+
+		assertEquals(SNAPSHOT.size(), decoded.size());
+		for (int slot = 0; slot < SNAPSHOT.size(); slot++)
+		{
+			assertEquals(SNAPSHOT.getItemId(slot), decoded.getItemId(slot));
+			assertEquals(SNAPSHOT.getQuantity(slot), decoded.getQuantity(slot));
+			assertEquals(SNAPSHOT.getPrice(slot), decoded.getPrice(slot));
+		}
+		assertEquals(SNAPSHOT.getTotalValue(), decoded.getTotalValue());
+		assertEquals(SNAPSHOT.getTotalItems(), decoded.getTotalItems());
+		assertEquals(SNAPSHOT.getUniqueItems(), decoded.getUniqueItems());
+		assertEquals(SNAPSHOT.getUsedSlots(), decoded.getUsedSlots());
+		assertEquals(SNAPSHOT.getTimestamp(), decoded.getTimestamp());
+	}
+
+	@Test
+	public void emptySnapshotRoundTrips() throws IOException
+	{
+		BankSnapshot decoded = BankSnapshotStore.decode(BankSnapshotStore.encode(BankSnapshot.EMPTY));
+		assertEquals(0, decoded.size());
+	}
+
+	@Test
+	public void truncatedFileIsIgnored() throws IOException
+	{
+		byte[] data = BankSnapshotStore.encode(SNAPSHOT);
+		for (int length = 0; length < data.length; length++)
+		{
+			assertSame(BankSnapshot.EMPTY, BankSnapshotStore.decode(Arrays.copyOf(data, length)));
+		}
+	}
+
+	@Test
+	public void badChecksumIsIgnored() throws IOException
+	{
+		byte[] data = BankSnapshotStore.encode(SNAPSHOT);
+		for (int i = 0; i < data.length; i++)
+		{
+			byte[] corrupt = data.clone();
+			corrupt[i] ^= 0x10;
+			assertSame(BankSnapshot.EMPTY, BankSnapshotStore.decode(corrupt));
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package com.bankbuddy;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class BankValueHistoryTest
+{
+	private static final int CATEGORIES = 3;
+	private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+	private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+	private static final long DAY = TimeUnit.DAYS.toMillis(1);
+	// Midnight, so buckets of every tier start here
+	private static final long START = 1_699_920_000_000L;
+
+	@Test
+	public void lookupsUseTheLastSampleOfABucket()
+	{
+		BankValueHistory history = new BankValueHistory(CATEGORIES);
+		history.record(START, 100, categories(10));
+		history.record(START + 20_000, 300, categories(30));
+		history.record(START + 40_000, 200, categories(20));
+		history.record(START + MINUTE, 400, categories(40));
+
+		assertEquals(200, history.valueAt(START + 50_000, MINUTE));
+		assertEquals(20, history.categoryValueAt(0, START + 50_000, MINUTE));
+		assertEquals(400, history.valueAt(START + 2 * MINUTE, MINUTE));
+		assertEquals(-1, history.valueAt(START - 1, MINUTE));
+		assertEquals(100, history.minValue(START, START + MINUTE));
+		assertEquals(400, history.maxValue(START, START + MINUTE));
+		assertEquals(300, history.maxValue(START, START + 50_000));
+	}
+
+	@Test
+	public void lookupsIgnoreSamplesOlderThanTheTolerance()
+	{
+		BankValueHistory history = new BankValueHistory(CATEGORIES);
+		history.record(START, 100, categories(10));
+		history.record(START + 20 * DAY, 200, categories(20));
+
+		assertEquals(200, history.valueAt(START + 20 * DAY + HOUR, DAY));
+		assertEquals(-1, history.valueAt(START + 19 * DAY, DAY));
+		assertEquals(100, history.valueAt(START + 19 * DAY, 20 * DAY));
+		assertEquals(-1, history.categoryValueAt(0, START + 19 * DAY, DAY));
+	}
+
+	@Test
+	public void finerTiersRollOverIntoCoarserOnes()
+	{
+		BankValueHistory history = new BankValueHistory(CATEGORIES);
+		// Two days of samples every minute, more than the minute tier holds
+		int samples = 2 * 24 * 60;
+		for (int i = 0; i < samples; i++)
+		{
+			history.record(START + i * MINUTE, i, categories(i));
+		}
+
+		long last = START + (samples - 1) * MINUTE;
+		// Recent times are still answered per minute
+		assertEquals(samples - 2, history.valueAt(last - MINUTE, MINUTE));
+		// The first day has left the minute tier, so the hour tier answers with
+		// the last sample of the hour
+		assertEquals(59, history.valueAt(START + 30 * MINUTE, HOUR));
+		assertEquals(0, history.minValue(START, START + HOUR - 1));
+		assertEquals(59, history.maxValue(START, START + HOUR - 1));
+	}
+
+	@Test
+	public void encodeDecodeRoundTrip() throws IOException
+	{
+		BankValueHistory history = new BankValueHistory(CATEGORIES);
+		for (int i = 0; i < 3000; i++)
+		{
+			long value = 1_000_000_000L + (i % 7 == 0 ? -i * 1000L : i * 37L);
+			history.record(START + i * 10 * MINUTE, value, categories(value / 3));
+		}
+
+		byte[] data = history.encode();
+		BankValueHistory decoded = BankValueHistory.decode(data, CATEGORIES);
+		assertTrue(Arrays.equals(data, decoded.encode()));
+
+		// Extra stored categories are dropped and missing ones read as zero
+		BankValueHistory fewer = BankValueHistory.decode(data, CATEGORIES - 1);
+		BankValueHistory more = BankValueHistory.decode(data, CATEGORIES + 1);
+		long time = START + 2000 * 10 * MINUTE;
+		assertEquals(history.valueAt(time, DAY), fewer.valueAt(time, DAY));
+		assertEquals(history.categoryValueAt(1, time, DAY), more.categoryValueAt(1, time, DAY));
+		assertEquals(0, more.categoryValueAt(CATEGORIES, time, DAY));
+	}
+
+	@Test
+	public void corruptDataIsRejected() throws IOException
+	{
+		BankValueHistory history = new BankValueHistory(CATEGORIES);
+		for (int i = 0; i < 100; i++)
+		{
+			history.record(START + i * HOUR, i * 1000L, categories(i));
+		}
+		byte[] data = history.encode();
+
+		for (int length = 0; length < data.length; length++)
+		{
+			assertRejected(Arrays.copyOf(data, length));
+		}
+		for (int i = 0; i < data.length; i++)
+		{
+			byte[] corrupt = data.clone();
+			corrupt[i] ^= 0x10;
+			assertRejected(corrupt);
+		}
+	}
+
+	private static void assertRejected(byte[] data)
+	{
+		try
+		{
+			BankValueHistory.decode(data, CATEGORIES);
+			fail("Decoded corrupt history of " + data.length + " bytes");
+		}
+		catch (IOException expected)
+		{
+		}
+	}
+
+	private static CategoryBreakdown categories(long value)
+	{
+		CategoryBreakdown breakdown = new CategoryBreakdown(CATEGORIES, 0);
+		for (int category = 0; category < CATEGORIES; category++)
+		{
+			breakdown.set(category, value + category, 1);
+		}
+		return breakdown;
+	}
+}
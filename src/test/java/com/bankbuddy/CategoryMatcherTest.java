@@ -0,0 +1,128 @@
+package com.bankbuddy;
+
+import java.util.Arrays;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class CategoryMatcherTest
+{
+	private static final String RULES = String.join("\n",
+		"# comment",
+		"[Weapons]",
+		"ids = 4151, 100",
+		"ranges = 1000-1009",
+		"keywords = sword, *axe",
+		"exclude = pickaxe",
+		"",
+		"[Tools]",
+		"ids = 100",
+		"ranges = 1005-1020",
+		"keywords = pickaxe, axe, *rod",
+		"",
+		"[Food]",
+		"keywords = *fish, shark",
+		"exclude = fishing");
+
+	private static final int WEAPONS = 0;
+	private static final int TOOLS = 1;
+	private static final int FOOD = 2;
+
+	@Test
+	public void sectionsDefineCategoriesInOrder()
+	{
+		CategoryRules rules = CategoryRules.parse(RULES);
+		assertEquals(Arrays.asList("Weapons", "Tools", "Food"), rules.getCategories());
+	}
+
+	@Test
+	public void firstIdRuleWins()
+	{
+		CategoryMatcher matcher = new CategoryMatcher(CategoryRules.parse(RULES));
+		assertEquals(WEAPONS, matcher.matchId(4151));
+		assertEquals(WEAPONS, matcher.matchId(100));
+		assertEquals(WEAPONS, matcher.matchId(1000));
+		assertEquals(WEAPONS, matcher.matchId(1009));
+		assertEquals(TOOLS, matcher.matchId(1010));
+		assertEquals(TOOLS, matcher.matchId(1020));
+		assertEquals(CategoryMatcher.NO_MATCH, matcher.matchId(1021));
+		assertEquals(CategoryMatcher.NO_MATCH, matcher.matchId(-1));
+	}
+
+	@Test
+	public void keywordsMatchWholeWordsUnlessWildcarded()
+	{
+		CategoryMatcher matcher = new CategoryMatcher(CategoryRules.parse(RULES));
+		assertEquals(WEAPONS, matcher.matchName("Rune sword"));
+		assertEquals(CategoryMatcher.NO_MATCH, matcher.matchName("Swordsman"));
+		assertEquals(FOOD, matcher.matchName("Swordfish"));
+		assertEquals(FOOD, matcher.matchName("SHARK"));
+		assertEquals(CategoryMatcher.NO_MATCH, matcher.matchName("Sharks"));
+		assertEquals(TOOLS, matcher.matchName("Fly fishing rod"));
+		assertEquals(WEAPONS, matcher.matchName("Battleaxe"));
+	}
+
+	@Test
+	public void exclusionsOnlyVetoTheirOwnCategory()
+	{
+		CategoryMatcher matcher = new CategoryMatcher(CategoryRules.parse(RULES));
+		// Weapons matches *axe but excludes pickaxe, which Tools picks up
+		assertEquals(TOOLS, matcher.matchName("Dragon pickaxe"));
+		// Food matches *fish but excludes fishing
+		assertEquals(CategoryMatcher.NO_MATCH, matcher.matchName("Fishing bait"));
+		// The earliest category with a match wins
+		assertEquals(WEAPONS, matcher.matchName("Shark sword"));
+	}
+
+	@Test
+	public void overridesTakePrecedence()
+	{
+		CategoryRules rules = CategoryRules.parse(RULES).withOverrides(String.join("\n",
+			"[Food]",
+			"ids = 4151",
+			"ranges = 1000-1001",
+			"exclude = shark",
+			"[Unknown]",
+			"ids = 5"));
+		CategoryMatcher matcher = new CategoryMatcher(rules);
+
+		assertEquals(Arrays.asList("Weapons", "Tools", "Food"), rules.getCategories());
+		assertEquals(FOOD, matcher.matchId(4151));
+		assertEquals(FOOD, matcher.matchId(1001));
+		assertEquals(WEAPONS, matcher.matchId(1002));
+		assertEquals(CategoryMatcher.NO_MATCH, matcher.matchId(5));
+		assertEquals(CategoryMatcher.NO_MATCH, matcher.matchName("Shark"));
+	}
+
+	@Test
+	public void malformedValuesAreSkipped()
+	{
+		CategoryMatcher matcher = new CategoryMatcher(CategoryRules.parse(String.join("\n",
+			"orphan = 1",
+			"[Misc]",
+			"ids = 7, ItemID.NOT_AN_ITEM, eight, 9",
+			"ranges = 20-10, 30, 40-ItemID.NOT_AN_ITEM, 50-51",
+			"keywords = *, gem",
+			"colour = red")));
+
+		assertEquals(0, matcher.matchId(7));
+		assertEquals(0, matcher.matchId(9));
+		assertEquals(CategoryMatcher.NO_MATCH, matcher.matchId(15));
+		assertEquals(CategoryMatcher.NO_MATCH, matcher.matchId(30));
+		assertEquals(CategoryMatcher.NO_MATCH, matcher.matchId(40));
+		assertEquals(0, matcher.matchId(51));
+		assertEquals(0, matcher.matchName("Uncut gem"));
+	}
+
+	@Test
+	public void bundledRulesResolveItemNames()
+	{
+		CategoryRules rules = CategoryRules.loadDefaults();
+		CategoryMatcher matcher = new CategoryMatcher(rules);
+
+		int combat = rules.getCategories().indexOf("Combat");
+		assertTrue(combat >= 0);
+		assertEquals(combat, matcher.matchId(ItemIdNames.get("ABYSSAL_WHIP")));
+		assertEquals(rules.getCategories().indexOf("Potions"), matcher.matchName("Antipoison potion(4)"));
+	}
+}
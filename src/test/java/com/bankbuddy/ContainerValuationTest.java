@@ -0,0 +1,153 @@
+package com.bankbuddy;
+
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class ContainerValuationTest
+{
+	private static final int CATEGORIES = 4;
+	private static final int SLOTS = 200;
+
+	@Test
+	public void deltaUpdatesMatchFullRebuild()
+	{
+		Random random = new Random(42);
+		ContainerValuation incremental = new ContainerValuation(CATEGORIES);
+		incremental.setValuableThreshold(1_000_000);
+
+		int[] ids = new int[SLOTS];
+		int[] canonicalIds = new int[SLOTS];
+		int[] quantities = new int[SLOTS];
+		int[] prices = new int[SLOTS];
+		int[] categories = new int[SLOTS];
+		for (int slot = 0; slot < SLOTS; slot++)
+		{
+			randomizeSlot(random, slot, ids, canonicalIds, quantities, prices, categories);
+		}
+
+		for (int step = 0; step < 500; step++)
+		{
+			int changes = 1 + random.nextInt(5);
+			for (int i = 0; i < changes; i++)
+			{
+				randomizeSlot(random, random.nextInt(SLOTS), ids, canonicalIds, quantities, prices, categories);
+			}
+			if (step % 50 == 0)
+			{
+				incremental.setValuableThreshold(random.nextInt(5_000_000));
+			}
+
+			incremental.update(ids, canonicalIds, quantities, prices, categories);
+
+			ContainerValuation rebuilt = new ContainerValuation(CATEGORIES);
+			rebuilt.setValuableThreshold(incremental.getValuableItems().getThreshold());
+			rebuilt.update(ids, canonicalIds, quantities, prices, categories);
+
+			assertSameValuation(rebuilt, incremental);
+		}
+	}
+
+	@Test
+	public void unchangedContainerReportsNoChange()
+	{
+		ContainerValuation valuation = new ContainerValuation(CATEGORIES);
+		int[] ids = {995, 4151, -1};
+		int[] quantities = {1000, 1, 0};
+		int[] prices = {1, 1_500_000, 0};
+		int[] categories = {0, 1, 0};
+
+		assertTrue(valuation.update(ids, quantities, prices, categories));
+		assertFalse(valuation.update(ids.clone(), quantities.clone(), prices.clone(), categories.clone()));
+
+		quantities[0] = 2000;
+		assertTrue(valuation.update(ids, quantities, prices, categories));
+		assertEquals(1_502_000, valuation.getTotalValue());
+	}
+
+	@Test
+	public void placeholdersAreNotCounted()
+	{
+		ContainerValuation valuation = new ContainerValuation(CATEGORIES);
+		valuation.setValuableThreshold(0);
+		valuation.update(new int[]{4151, 11802}, new int[]{1, 0}, new int[]{1_500_000, 20_000_000}, new int[]{1, 1});
+
+		assertEquals(1, valuation.getUniqueItems());
+		assertEquals(1, valuation.getCategories(5).getItemCount(1));
+		assertEquals(1, valuation.getValuableItems().size());
+		assertEquals(4151, valuation.getValuableItems().getItemId(0));
+	}
+
+	@Test
+	public void notedAndUnnotedStacksCountOnce()
+	{
+		ContainerValuation valuation = new ContainerValuation(CATEGORIES);
+		valuation.update(new int[]{1511, 1512}, new int[]{1511, 1511}, new int[]{10, 90}, new int[]{5, 5},
+			new int[]{0, 0});
+
+		assertEquals(1, valuation.getUniqueItems());
+		assertEquals(100, valuation.getItemQuantities().get(1511));
+		assertEquals(100, valuation.getTotalItems());
+	}
+
+	private static void randomizeSlot(Random random, int slot, int[] ids, int[] canonicalIds, int[] quantities,
+		int[] prices, int[] categories)
+	{
+		if (random.nextInt(6) == 0)
+		{
+			ids[slot] = -1;
+			canonicalIds[slot] = -1;
+			quantities[slot] = 0;
+			prices[slot] = 0;
+			categories[slot] = 0;
+			return;
+		}
+
+		// Pairs of ids share a canonical id, like noted and unnoted items
+		ids[slot] = random.nextInt(60);
+		canonicalIds[slot] = ids[slot] & ~1;
+		quantities[slot] = random.nextInt(8) == 0 ? 0 : 1 + random.nextInt(10_000);
+		prices[slot] = random.nextInt(20_000);
+		categories[slot] = ids[slot] % CATEGORIES;
+	}
+
+	private static void assertSameValuation(ContainerValuation expected, ContainerValuation actual)
+	{
+		assertEquals(expected.getTotalValue(), actual.getTotalValue());
+		assertEquals(expected.getTotalItems(), actual.getTotalItems());
+		assertEquals(expected.getUniqueItems(), actual.getUniqueItems());
+
+		ItemQuantityIndex expectedQuantities = expected.getItemQuantities();
+		ItemQuantityIndex actualQuantities = actual.getItemQuantities();
+		assertEquals(expectedQuantities.size(), actualQuantities.size());
+		for (int i = expectedQuantities.next(-1); i >= 0; i = expectedQuantities.next(i))
+		{
+			assertEquals(expectedQuantities.valueAt(i), actualQuantities.get(expectedQuantities.keyAt(i), -1));
+		}
+
+		CategoryBreakdown expectedCategories = expected.getCategories(3);
+		CategoryBreakdown actualCategories = actual.getCategories(3);
+		for (int category = 0; category < CATEGORIES; category++)
+		{
+			assertEquals(expectedCategories.getValue(category), actualCategories.getValue(category));
+			assertEquals(expectedCategories.getItemCount(category), actualCategories.getItemCount(category));
+			assertEquals(expectedCategories.getTopCount(category), actualCategories.getTopCount(category));
+			for (int rank = 0; rank < expectedCategories.getTopCount(category); rank++)
+			{
+				// Stacks of equal value may rank in either order
+				assertEquals(expectedCategories.getTopItemValue(category, rank),
+					actualCategories.getTopItemValue(category, rank));
+			}
+		}
+
+		ValuableItems expectedValuable = expected.getValuableItems();
+		ValuableItems actualValuable = actual.getValuableItems();
+		assertEquals(expectedValuable.size(), actualValuable.size());
+		for (int rank = 0; rank < expectedValuable.size(); rank++)
+		{
+			assertEquals(expectedValuable.getValue(rank), actualValuable.getValue(rank));
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package com.bankbuddy;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class ItemQuantityIndexTest
+{
+	@Test
+	public void insertUpdateAndRemove()
+	{
+		ItemQuantityIndex index = new ItemQuantityIndex();
+		index.put(995, 1000);
+		assertEquals(1500, index.add(995, 500));
+		assertEquals(7, index.add(4151, 7));
+		assertEquals(2, index.size());
+		assertEquals(1500, index.get(995));
+		assertEquals(0, index.get(11802));
+		assertEquals(-1, index.get(11802, -1));
+
+		assertTrue(index.remove(995));
+		assertFalse(index.remove(995));
+		assertFalse(index.containsKey(995));
+		assertEquals(7, index.get(4151));
+		assertEquals(1, index.size());
+
+		index.clear();
+		assertTrue(index.isEmpty());
+		assertEquals(-1, index.next(-1));
+	}
+
+	@Test
+	public void probeChainWrapsAroundTheTable()
+	{
+		// Three keys hashing to the last slot of a 16 slot table
+		int[] keys = new int[3];
+		int found = 0;
+		for (int key = 0; found < keys.length; key++)
+		{
+			if (homeSlot(key) == 15)
+			{
+				keys[found++] = key;
+			}
+		}
+
+		ItemQuantityIndex index = new ItemQuantityIndex(4);
+		for (int key : keys)
+		{
+			index.put(key, key + 1L);
+		}
+		assertEquals(keys[1], index.keyAt(0));
+		assertEquals(keys[2], index.keyAt(1));
+		assertEquals(keys[0], index.keyAt(15));
+
+		// Removing the head of the chain shifts the wrapped entries back
+		assertTrue(index.remove(keys[0]));
+		assertEquals(keys[1], index.keyAt(15));
+		assertEquals(keys[2], index.keyAt(0));
+		assertEquals(keys[1] + 1L, index.get(keys[1]));
+		assertEquals(keys[2] + 1L, index.get(keys[2]));
+		assertFalse(index.containsKey(keys[0]));
+	}
+
+	@Test
+	public void matchesHashMapUnderRandomOperations()
+	{
+		Random random = new Random(7);
+		ItemQuantityIndex index = new ItemQuantityIndex(8);
+		Map<Integer, Long> expected = new HashMap<>();
+		for (int i = 0; i < 100_000; i++)
+		{
+			int key = random.nextInt(2_000) - 100;
+			switch (random.nextInt(3))
+			{
+				case 0:
+					index.put(key, i);
+					expected.put(key, (long) i);
+					break;
+				case 1:
+					assertEquals(expected.merge(key, 3L, Long::sum).longValue(), index.add(key, 3));
+					break;
+				default:
+					assertEquals(expected.remove(key) != null, index.remove(key));
+					break;
+			}
+		}
+
+		assertEquals(expected.size(), index.size());
+		int iterated = 0;
+		for (int i = index.next(-1); i >= 0; i = index.next(i))
+		{
+			assertEquals(expected.get(index.keyAt(i)).longValue(), index.valueAt(i));
+			iterated++;
+		}
+		assertEquals(expected.size(), iterated);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsReservedKey()
+	{
+		new ItemQuantityIndex().put(Integer.MIN_VALUE, 1);
+	}
+
+	/**
+	 * Finds where a key lands in an empty 16 slot table
+	 */
+	private static int homeSlot(int key)
+	{
+		ItemQuantityIndex index = new ItemQuantityIndex(4);
+		index.put(key, 0);
+		return index.next(-1);
+	}
+}